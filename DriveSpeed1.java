@@ -43,6 +43,120 @@
   the system.  Most computers handle a wide range of sizes with equal
   performance.  The default buffer size is generally good.
 
+  The I/O engine is an option.  The default "stream" engine uses the standard
+  Java byte streams, which go through the disk cache of the operating system.
+  The "direct" engine asks the system to bypass its disk cache (O_DIRECT on
+  Linux), so that read speeds come from the drive and not from memory, even
+  when the total number of bytes is smaller than your RAM.  Direct I/O needs
+  Java 10 or later, a file system that supports it, and a buffer size that is
+  a multiple of the drive's block size (usually 4 KB).  The "mapped" engine
+  maps each file into memory (FileChannel.map) in windows of 64 MB (see the
+  -window option), copies data to or from the mapping, and forces changed pages
+  out to the drive as part of the timing.  This is how programs that use
+  memory-mapped files see a drive.  The "channel" engine uses a FileChannel
+  with a data buffer in native memory, which goes through the disk cache like
+  byte streams, but without copying each buffer between the Java heap and the
+  system.  Use the channel engine for buffers bigger than 64 MB.  The "heap"
+  engine is a FileChannel with a buffer in the Java heap, and the "raf" engine
+  uses RandomAccessFile for all reading and writing.  Several engines can be
+  compared in one run with a list on the command line, such as
+  -engine=stream,channel,mapped.
+
+  The "async" engine uses AsynchronousFileChannel, the way servers with
+  non-blocking I/O use a drive.  Each thread keeps a number of positional
+  reads or writes in flight (default 16, see the -depth option), each with its
+  own reusable native buffer, and the byte counts come from the completion
+  handlers.  A list such as -depth=1,4,16,64 tries each depth in turn, and
+  reports a table of depth versus MB/s.
+
+  The -bench option compares the Java I/O methods themselves, to catch changes
+  when upgrading Java.  It runs as a console application, with the stream,
+  raf, heap, channel, and mapped engines, buffer sizes from 4 KB to 64 MB (the
+  choices in the graphical interface), 256 MB for each cycle, no cache
+  clearing, no seconds ignored, and two warmup cycles before each measured
+  cycle, so the Java compiler has done its work.  Options after -bench can
+  change these.  Use a folder on a RAM disk (tmpfs) to measure Java, not the
+  drive.
+
+  The test mode is an option.  A "sequential" test reads and writes large
+  files from beginning to end.  A "random" test first creates the files, then
+  writes and reads single blocks at random positions in those files, which is
+  how databases use a drive.  Random tests report I/O operations per second
+  (IOPS) for the chosen block size in the "Details" box, and stop after the
+  same number of bytes as the sequential test, or after a time limit (default
+  60 seconds, see the -time option), whichever comes first.
+
+  A "mixed" test first creates the files, like a random test, then reads and
+  writes random blocks at the same time, the way a busy server uses a drive.
+  Readers and writers are separate threads (one of each for each thread you
+  choose), held to a ratio of bytes read to bytes written (default 70% reads,
+  see the -mix option).  Read and write speeds are shown separately while the
+  test runs.  Drives that are fast for only reading or only writing are often
+  much slower when doing both.  When verifying data, a block read while it is
+  being written may be reported as bad, depending upon the file system.
+
+  A "files" test is for small files and file system metadata, the way a build
+  farm or mail spool uses a drive.  It creates a large number of small files
+  (default 10,000 files of 4 KB, see the -files and -filesize options) spread
+  over a number of folders (default 100, see the -fanout option), then gets
+  the size of each file (stat), reads each file, and deletes them.  Files are
+  synced after writing if the sync option is anything but "none".  Each step
+  reports operations per second.  One task for each folder runs on a virtual
+  thread if Java has them (Java 21 and later), so all folders are busy at the
+  same time, otherwise on a pool with the chosen number of threads (see the
+  -virtual option).  The I/O engine doesn't apply here.
+
+  Sweeping the buffer size is an option.  The write and read passes are done
+  once for each power of two between a smallest and largest size, such as
+  -sweep=4k:64m on the command line, or from 4 KB up to the selected buffer
+  size in the graphical interface.  Random tests sweep the block size instead.
+  The same temporary files are kept from one size to the next, and deleted at
+  the end.  A table of size versus MB/s is reported, with the smallest size
+  that reaches 90% of the best speed (the "knee"), and the graphical interface
+  also draws a graph.  Use this to choose request sizes for your own programs.
+
+  Repeating the test is an option, because speeds vary from one run to the
+  next.  The -repeat option does the write/read cycle a given number of times
+  with the same temporary files, then reports the mean, standard deviation,
+  minimum, and maximum speed for each pass, and a 95% confidence interval for
+  the mean.  The -ci option stops repeating once that interval is within a
+  given percent of the mean, for both passes.  If two drives have intervals
+  that overlap, then the difference between them may be only noise.  A sweep
+  does one cycle for each size, and isn't repeated.
+
+  Testing several drive folders at the same time is an option, to check that
+  a disk controller or backplane keeps up when all of its drives are busy.
+  Give the -folder option more than once, or select several folders in the
+  graphical interface.  The number of threads, total bytes, and any write rate
+  are then for each folder, and each folder has its own threads.  The usual
+  speeds are for all folders combined, and the "Details" box also has the
+  bytes and speed of each folder for each pass (averaged over the whole pass).
+
+  The order for reading is an option, for sequential tests.  Normally each
+  file is read from beginning to end, which is the best case for the system's
+  read-ahead.  The -order option can read each file backward (last buffer
+  first), strided (read one buffer then skip a number of buffers, default 3,
+  see the -stride option, so only part of each file is read), or interleaved
+  (each thread reads a buffer from each of several files in turn, default 4,
+  see the -interleave option).  All orders use positional reads, and speeds
+  are for the bytes actually read.  Compare with the normal order to see how
+  much read-ahead helps or hurts on each drive.
+
+  The number of threads is an option.  Fast drives (NVMe) need several
+  requests at the same time to reach their full speed.  Each thread reads or
+  writes its own files: with four threads, the first thread has files 1, 5,
+  9, etc, and the second thread has files 2, 6, 10, etc.  Speeds are for all
+  threads combined.
+
+  Clearing the disk cache is an option (-evict=on, off by default), after
+  writing finishes and before reading starts.  All files are forced out to the
+  drive, then the system is asked to drop its cached copy of each file.  On
+  Linux, this uses the "dd" command with "iflag=nocache" (posix_fadvise).  If
+  that fails, -evict=all uses drop_caches instead, for the whole system, if
+  you are the root user.  Other systems may not have a way of doing this.  The
+  result is shown in the "Details" box, including how many bytes are still in
+  the cache when the "fincore" command is available.
+
   Being prompted with a pop-up dialog box is an option, after writing finishes
   and before reading starts.  If your drive is a removable device or on
   removable media, you can remove (eject) the drive by the normal procedure for
@@ -50,9 +164,101 @@
   clears the disk cache, and is important for USB thumb drives, which are often
   smaller than the amount of memory on your computer.
 
-  Don't use this program on compressed disks, because zeros are constant and
-  highly compressible.  Files with names similar to "ERASE123.DAT" are assumed
-  to belong to this program and will be replaced or deleted without notice.
+  The data pattern is an option.  By default, files are filled with zeros,
+  which some drives and file systems compress or de-duplicate (btrfs and ZFS
+  with compression, many SSD controllers), making their speeds look better
+  than they are for real data.  The "random" pattern can't be compressed.
+  The "compress" pattern has a set percentage of zeros in each 4 KB (default
+  50%, see the -compress option), and the rest is random.  Patterns are made
+  before the timing starts, into a rotating pool of buffers for each thread,
+  so writing costs the same for all patterns.
+
+  Speeds are measured by a separate sampler thread with a nanosecond clock,
+  every 100 milliseconds by default (see the -sample option, from 10 to 1000
+  milliseconds).  Short tests on fast drives, which may take only a second or
+  two, still get accurate speeds.
+
+  Each read or write request is timed separately, and the latency of requests
+  in each pass is reported as the minimum, the 50th, 90th, 99th, and 99.9th
+  percentiles, and the maximum, in nanoseconds.  Percentiles are accurate to
+  about 6%.  A good average speed can hide a few requests that take seconds,
+  and those are what the higher percentiles find.
+
+  The speed in each sample interval of each pass is kept, and can be saved
+  in a CSV (comma-separated values) file with the -csv option.  The intervals
+  are checked for a "cliff": a sharp drop in speed that lasts until the end of
+  the pass, such as when a consumer SSD fills its fast SLC cache.  The position
+  of the cliff, and speeds before and after, are reported in the "Details" box.
+  This tells you how much fast "burst" capacity a drive really has.
+
+  Saving results is an option.  The -results option appends one line for each
+  test to a results file that is never rewritten: the date and time, computer
+  name, Java and system versions, file system type of each folder, and then
+  every name=value result from the test (options, speeds, latencies, etc),
+  separated by tabs.  Cancelled tests are not saved.  With the -compare option,
+  speeds are first compared to a baseline: the oldest test in the file with
+  the same computer, folders, and options.  Any speed that is lower than the
+  baseline by more than the given percent is flagged as a regression, which
+  is an error for a console application.  To take a new baseline, say after
+  replacing a drive on purpose, start a new results file.
+
+  Reusing the temporary files is an option, to save time and wear on flash
+  drives when only reading is being measured.  The -keep option doesn't
+  delete the files, and writes a manifest (ERASEMAN.TXT in the first drive
+  folder) with the size of each file, the run number in the block headers, and
+  the options used for writing.  A later test with the -reuse option reads the
+  manifest, checks that every file is still there with the same size, and
+  then does only the read pass (or random reads), without writing anything.
+  The folders and number of threads must be the same as when the files were
+  written, and verifying data needs files written with the -verify option.
+  Writing files for any other test makes the manifest out of date, so it is
+  deleted first.  This doesn't apply to "files" or "mixed" tests.
+
+  Syncing written data to the drive is an option.  Without syncing, much of
+  the write speed can be how fast the system fills its disk cache, not how fast
+  the drive writes.  Choose "close" to force each file out to the drive
+  (fsync) before closing it, or a size such as -sync=16m to force each file
+  after every 16 MB written by a thread, and again at close.  Time spent
+  syncing is part of the write speed, and is also reported separately.
+
+  Preallocating files is an option.  Normally each file starts empty and
+  grows as it is written, so the write speed includes the file system finding
+  free space and recording it, which is very different for ext4, XFS, NTFS,
+  and FAT32.  With -prealloc=size, each file is set to its final size before
+  the clock starts; with -prealloc=fill, each file is also filled with zeros
+  and synced, because some file systems (and Linux) only make a "sparse" file
+  when the size is set.  The write pass then overwrites the existing files
+  (byte streams become random access files for this), and the time spent
+  allocating is reported separately.
+
+  Limiting the write rate is an option, to measure latency at a steady load
+  instead of flat out, such as a logger that writes 200 MB/s.  With a rate
+  like -rate=200m (bytes per second) or -rate=5000iops (requests per second),
+  each writer thread gets an equal part of the rate and a fixed schedule: a
+  request that would be early waits for its scheduled time.  Latency is then
+  measured from the scheduled time, not from when the request was issued, so
+  a slow request also counts against the requests that were delayed behind it
+  ("coordinated omission").  Each write pass reports the target rate, how
+  late the latest request was issued, and whether the drive kept up (at least
+  95% of the target speed).  With several folders, the rate is for each
+  folder, and the target is for all folders combined, like the speed.
+  Sequential writes and random writes are paced; reading and mixed tests are
+  not.  The async engine is paced, but times each request from when it was
+  issued.
+
+  Verifying data is an option.  Each 4 KB block that is written starts with a
+  header (run number, file number, and position in the file) and a CRC32C
+  checksum of the rest of the block.  Reading checks every block, so a drive
+  that returns the wrong block or damaged data is reported in the "Details"
+  box, with the file name and position.  Checking is done by each worker
+  thread after its read request, and is included in the read speed; the
+  percentage of time spent checking is also reported.  Buffer sizes must be a
+  multiple of 4 KB.
+
+  Don't use this program on compressed disks with the "zeros" pattern, because
+  zeros are constant and highly compressible.  Files with names similar to
+  "ERASE123.DAT" are assumed to belong to this program and will be replaced or
+  deleted without notice.
   See also the EraseDisk Java application.
 
   Apache License or GNU General Public License
@@ -78,6 +284,16 @@
   interface.  An option such as -u14 or -u16 is recommended because the default
   Java font is too small.
 
+  To run as a console application without a graphical interface (such as on a
+  server with no display, or from a script), use the -c option and give a
+  drive folder with the -folder option:
+
+      java  DriveSpeed1  -c  -folder=/mnt/disk2  -total=10g  -buffer=1m
+
+  Results are written on standard output as one "name=value" pair per line,
+  with speeds in bytes per second, so that scripts can easily parse them.
+  Errors are written on standard error, and the exit status is non-zero.
+
   Restrictions and Limitations
   ----------------------------
   Read speeds will be meaningless if the total number of bytes written is
@@ -97,7 +313,13 @@
 import java.awt.*;                // older Java GUI support
 import java.awt.event.*;          // older Java GUI event support
 import java.io.*;                 // standard I/O
+import java.lang.reflect.*;       // unmapping memory-mapped files
+import java.nio.*;                // byte buffers for newer I/O engines
+import java.nio.channels.*;       // file channels for newer I/O engines
+import java.nio.file.*;           // file options for newer I/O engines
 import java.text.*;               // number formatting
+import java.util.concurrent.*;    // thread pools for small files
+import java.util.concurrent.atomic.*; // byte counters shared by threads
 import java.util.regex.*;         // regular expressions
 import javax.swing.*;             // newer Java GUI support
 import javax.swing.border.*;      // decorative borders
@@ -108,91 +330,332 @@ public class DriveSpeed1
 
   static final String COPYRIGHT_NOTICE =
     "Copyright (c) 2016 by Keith Fenske.  Apache License or GNU GPL.";
+  static final int BENCH_MAX = 0x4000000; // largest buffer for -bench (64 MB)
+  static final int BENCH_MIN = 0x1000; // smallest buffer for -bench (4 KB)
+  static final long BENCH_TOTAL = 0x10000000L; // bytes per cycle (256 MB)
+  static final int BENCH_WARMUP = 2; // cycles before each measured cycle
+  static final String[] BLOCK_CHOICES = {"4 KB", "8 KB", "16 KB", "32 KB",
+    "64 KB", "128 KB", "256 KB", "512 KB", "1 MB"};
+                                  // block sizes for random tests
+  static final String BLOCK_DEFAULT = "4 KB"; // default choice for above
+  static final int COMPRESS_CHUNK = 0x1000; // bytes per compressible chunk
+  static final int DEFAULT_COMPRESS = 50; // percent zeros, "compress" pattern
+  static final int DEFAULT_DEPTH = 16; // requests in flight, async engine
+  static final int DEFAULT_FANOUT = 100; // folders for "files" test
+  static final int DEFAULT_FILE_BYTES = 0x1000; // bytes in each small file
+  static final int DEFAULT_FILES = 10000; // number of small files
   static final int DEFAULT_HEIGHT = -1; // default window height in pixels
+  static final int DEFAULT_INTERLEAVE = 4; // files at once, "interleaved"
   static final int DEFAULT_LEFT = 50; // default window left position ("x")
+  static final int DEFAULT_MIX = 70; // percent reads for "mixed" test
+  static final int DEFAULT_SAMPLE = 100; // milliseconds between samples
+  static final int DEFAULT_STRIDE = 3; // buffers skipped, "strided" order
+  static final int DEFAULT_TIME_LIMIT = 60; // seconds for each random pass
   static final int DEFAULT_TOP = 50; // default window top position ("y")
   static final int DEFAULT_WIDTH = -1; // default window width in pixels
+  static final int DEFAULT_WINDOW = 0x4000000; // memory-mapped window (64 MB)
+  static final int DIRECT_ALIGN = 0x1000; // default block size for direct I/O
+  static final int ENGINE_ASYNC = 6; // AsynchronousFileChannel, many requests
+  static final int ENGINE_CHANNEL = 3; // FileChannel with native buffers
+  static final String[] ENGINE_CHOICES = {"stream", "direct", "mapped",
+    "channel", "heap", "raf", "async"};
+                                  // names of I/O engines, indexed by number
+  static final int ENGINE_DIRECT = 1; // direct I/O, bypass system disk cache
+  static final int ENGINE_HEAP = 4; // FileChannel with Java array buffers
+  static final int ENGINE_MAPPED = 2; // memory-mapped files, FileChannel.map()
+  static final int ENGINE_RAF = 5; // RandomAccessFile for all access
+  static final int ENGINE_STREAM = 0; // FileInputStream, FileOutputStream
+  static final int ERASE_MIXED = 3; // reading and writing at the same time
   static final int ERASE_NONE = 0; // current state in startErase() method
   static final int ERASE_READ = 1;
   static final int ERASE_WRITE = 2;
+  static final int FILE_CREATE = 1; // create new file for sequential writing
+  static final int FILE_READ = 0; // open existing file for reading
+  static final int FILE_UPDATE = 2; // open existing file for random writing
+  static final String FILES_FOLDER = "ERASEDIR"; // top folder, "files" test
+  static final String[] FILES_NAMES = {"create", "stat", "read", "delete"};
+                                  // steps in "files" test, by worker task
   static final String[] IGNORE_CHOICES = {"2", "5", "10", "20", "50", "100",
     "200"};                       // number of seconds to ignore when starting
   static final String IGNORE_DEFAULT = "5"; // default choice for above
+  static final String MANIFEST_NAME = "ERASEMAN.TXT"; // for kept files
   static final int MAX_FILE_COUNT = 999; // maximum number of temporary files
   static final long MAX_FILE_SIZE = 0x7FFFFFFF00000000L;
                                   // safe positive 64-bit integer
   static final int MIN_FRAME = 200; // minimum window height or width in pixels
+  static final long MIX_WAIT = 20000; // nanoseconds when ahead of ratio
+  static final String[] MODE_CHOICES = {"sequential", "random", "files",
+    "mixed"};                     // names of test modes, indexed by number
+  static final int MODE_FILES = 2; // many small files, metadata speed
+  static final int MODE_MIXED = 3; // random reads and writes together
+  static final int MODE_RANDOM = 1; // random blocks in existing files
+  static final int MODE_SEQUENTIAL = 0; // whole files, beginning to end
   static final String NO_DRIVE_TEXT =
     "Please select a drive folder for writing files.";
   static final String NO_SPEED_TEXT = ""; // used before speeds are calculated
+  static final int ORDER_BACKWARD = 1; // last buffer of each file first
+  static final String[] ORDER_CHOICES = {"forward", "backward", "strided",
+    "interleaved"};               // orders for reading, indexed by number
+  static final int ORDER_FORWARD = 0; // beginning to end, one file at a time
+  static final int ORDER_INTERLEAVED = 3; // several files in turn
+  static final int ORDER_STRIDED = 2; // read one buffer, skip some buffers
+  static final String[] PATTERN_CHOICES = {"zeros", "random", "compress"};
+                                  // names of data patterns, indexed by number
+  static final int PATTERN_COMPRESS = 2; // part zeros, part random bytes
+  static final int PATTERN_RANDOM = 1; // pseudo-random, incompressible
+  static final int PATTERN_ZEROS = 0; // all binary zeros
+  static final int POOL_BYTES = 0x4000000; // pattern pool per thread (64 MB)
+  static final int POOL_COUNT = 16; // most buffers in pattern pool
+  static final int PREALLOC_BUFFER = 0x100000; // zeros for "fill" (1 MB)
+  static final String[] PREALLOC_CHOICES = {"none", "size", "fill"};
+                                  // how files are preallocated, by number
+  static final int PREALLOC_FILL = 2; // set size, write zeros, and sync
+  static final int PREALLOC_NONE = 0; // files grow as they are written
+  static final int PREALLOC_SIZE = 1; // set size only, may be sparse
   static final String PROGRAM_TITLE =
     "Read/Write Speeds for Disk Drives, Flash Drives - by: Keith Fenske";
+  static final int RATE_KEPT = 95; // percent of target rate that kept up
+  static final int SERIES_START = 1024; // initial number of intervals kept
+  static final int SWEEP_KNEE = 90; // percent of best speed for knee point
+  static final int SWEEP_MIN = 0x1000; // smallest size for GUI sweep (4 KB)
+  static final String[] SYNC_CHOICES = {"none", "close", "1 MB", "16 MB",
+    "256 MB"};                    // when to force written data to drive
   static final String SYSTEM_FONT = "Dialog"; // this font is always available
+  static final String[] THREAD_CHOICES = {"1", "2", "4", "8", "16", "32",
+    "64"};                        // number of worker threads
+  static final String THREAD_DEFAULT = "1"; // default choice for above
   static final int TIMER_DELAY = 1000; // 1.000 seconds between status updates
   static final String TOO_FAST_TEXT = "zero time";
                                   // when not enough time to calculate speed;
                                   // see also: http://en.wikipedia.org/wiki/NaN
-
-  /* The queue size for pending clock data is affected by both IGNORE_CHOICES
-  and TIMER_DELAY because you need one entry in the queue for each timer event,
-  up to the total number of seconds being ignored, with a few to spare.  The
-  modular arithmetic (%) is probably faster with a power of two. */
-
-  static final int QUEUE_SIZE = 256; // maximum size of pending clock data
+  static final int VERIFY_BLOCK = 0x1000; // bytes per checked block (4 KB)
+  static final int VERIFY_CRC = 24; // index of checksum in block header
+  static final int VERIFY_HEADER = 28; // bytes in block header with checksum
+  static final int VERIFY_REPORT = 10; // most mismatches reported each pass
+  static final int WORKER_FILES_CREATE = 4; // "files" test, in this order
+  static final int WORKER_FILES_DELETE = 7;
+  static final int WORKER_FILES_READ = 6;
+  static final int WORKER_FILES_STAT = 5;
+  static final int WORKER_MIXED = 8; // writers first, then readers
+  static final int WORKER_RANDOM_READ = 2; // task for DriveSpeed1Worker
+  static final int WORKER_RANDOM_WRITE = 3;
+  static final int WORKER_READ = 0;
+  static final int WORKER_WRITE = 1;
+
+  /* The -bench option compares these engines, in this order.  The list comes
+  after the engine numbers, because Java doesn't allow an initializer to use a
+  constant that is declared later. */
+
+  static final int[] ENGINE_BENCH = {ENGINE_STREAM, ENGINE_RAF, ENGINE_HEAP,
+    ENGINE_CHANNEL, ENGINE_MAPPED}; // engines for -bench option
+
+  /* The queue size for pending clock data is affected by both the number of
+  seconds being ignored and the sample interval, because you need one entry in
+  the queue for each sample, up to the total number of seconds being ignored,
+  with a few to spare.  The size is calculated when each pass begins. */
+
+  static final int QUEUE_SPARE = 16; // extra entries in pending clock data
+
+  /* A cliff is a drop in speed of at least CLIFF_DROP percent, comparing the
+  average before with the average after, and each side must have at least
+  CLIFF_SECONDS of samples so that one slow second isn't called a cliff. */
+
+  static final int CLIFF_DROP = 40; // percent drop in speed for a cliff
+  static final int CLIFF_SECONDS = 3; // fewest seconds before and after
+
+  /* Repeated cycles are summarized with a 95% confidence interval for the
+  mean speed, using Student's t distribution for small samples: the critical
+  value for one to 30 degrees of freedom (cycles minus one), and the normal
+  distribution after that.  Stopping early needs a few cycles first. */
+
+  static final int DEFAULT_REPEAT = 30; // most cycles for -ci without -repeat
+  static final int MAX_REPEAT = 1000; // most cycles for -repeat option
+  static final int REPEAT_MIN_CI = 3; // fewest cycles before stopping early
+  static final double[] T_95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447,
+    2.365, 2.306, 2.262, 2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120,
+    2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064, 2.060, 2.056,
+    2.052, 2.048, 2.045, 2.042}; // index is degrees of freedom minus one
+  static final double T_95_NORMAL = 1.960; // more than 30 degrees of freedom
+
+  /* A test is compared with a baseline from the results file only if all of
+  these results are the same, in the same order. */
+
+  static final String[] RESULTS_KEYS = {"host", "folder", "buffer.bytes",
+    "block.bytes", "total.bytes", "mode", "mixed.read.percent", "pattern",
+    "pattern.zeros.percent", "threads", "sync", "verify", "sweep.min.bytes",
+    "sweep.max.bytes", "files.count", "files.bytes", "files.fanout",
+    "alloc.type", "read.order", "read.stride", "read.interleave", "engine",
+    "window.bytes", "depth", "rate.folder"};
+
+  /* Limits for command-line options that are normally chosen from the
+  graphical interface.  The buffer size is limited by Java arrays and by what
+  the operating system will accept in a single request. */
+
+  static final int MAX_BLOCK_SIZE = 0x100000; // largest random block (1 MB)
+  static final int MAX_BUFFER_SIZE = 0x40000000; // largest data buffer (1 GB)
+  static final int MAX_COMPRESS = 99; // most percent zeros for compress
+  static final int MAX_DEPTH = 1024; // most requests in flight, async engine
+  static final int MAX_FANOUT = 100000; // most folders for "files" test
+  static final int MAX_FILE_BYTES = 0x100000; // largest small file (1 MB)
+  static final int MAX_FILES = 100000000; // most small files (100 million)
+  static final int MAX_IGNORE_SECONDS = 200; // seconds to ignore each pass
+  static final int MAX_INTERLEAVE = 64; // most files at once, "interleaved"
+  static final int MAX_SAMPLE = 1000; // longest sample interval (1 second)
+  static final int MAX_STRIDE = 1000; // most buffers skipped, "strided"
+  static final int MAX_THREAD_COUNT = 256; // maximum number of worker threads
+  static final int MAX_TIME_LIMIT = 86400; // one day for each random pass
+  static final int MIN_BLOCK_SIZE = 0x1000; // smallest random block (4 KB)
+  static final int MIN_BUFFER_SIZE = 0x400; // smallest data buffer (1 KB)
+  static final int MIN_SAMPLE = 10; // shortest sample interval (10 ms)
 
   /* class variables */
 
+  static int asyncDepth;          // requests in flight for async engine
+  static JComboBox<String> blockDialog; // GUI select random block size
+  static int blockSize;           // number of bytes in each random request
   static JRadioButton buffer1Kbutton, buffer2Kbutton, buffer4Kbutton,
     buffer8Kbutton, buffer16Kbutton, buffer32Kbutton, buffer64Kbutton,
     buffer128Kbutton, buffer256Kbutton, buffer512Kbutton, buffer1Mbutton,
     buffer2Mbutton, buffer4Mbutton, buffer8Mbutton, buffer16Mbutton,
     buffer32Mbutton, buffer64Mbutton, buffer128Mbutton, buffer256Mbutton,
     buffer512Mbutton;             // radio buttons for data buffer sizes
-  static long bytesAllFiles;      // current number of bytes read or written
+  static int bufferAlign;         // required alignment for direct buffers
+  static int bufferSize;          // number of bytes in our data buffer
+  static LongAdder bytesAllFiles; // current number of bytes read or written
   static JButton cancelButton;    // graphical button for <cancelFlag>
-  static boolean cancelFlag;      // our signal from user to stop processing
+  static volatile boolean cancelFlag; // our signal from user to stop processing
+  static double ciPercent;        // target confidence interval, or zero
+  static int comparePercent;      // regression tolerance, or zero for none
+  static int compressPercent;     // percent zeros for "compress" pattern
+  static boolean consoleFlag;     // true if running as a console application
+  static String csvFilename;      // file name for interval speeds, or null
+  static PrintWriter csvWriter;   // open CSV file for this test, or null
   static boolean deleteFlag;      // true if we delete our temporary files
+  static int[] depthList;         // requests in flight to compare, in order
+  static JTextArea detailText;    // details and results for this test
+  static LongAdder[] driveBytes;  // bytes for each drive folder, this pass
+  static long[] driveClock;       // when last worker for each folder ended
   static JButton driveFolderButton; // button to select where we write files
+  static File[] driveList;        // all drive folders, same order as user
   static File driveSelection;     // user's selected writeable drive folder
+  static JComboBox<String> engineDialog; // GUI select I/O engine
+  static int[] engineList;        // I/O engines to compare, in order
+  static int engineType;          // I/O engine for reading, writing files
   static int eraseState;          // current state in startErase() method
+  static JCheckBox evictCheckbox; // GUI enable option "clear disk cache"
+  static boolean evictFlag;       // true if we clear disk cache before reading
+  static boolean evictGlobal;     // true if we may drop all cached files
   static JButton exitButton;      // "Exit" button for ending this application
+  static int exitStatus;          // exit status for console application
+  static int fanoutCount;         // number of folders for "files" test
   static JRadioButton file1Mbutton, file10Mbutton, file100Mbutton,
     file1Gbutton, file10Gbutton, file100Gbutton, file1Tbutton, file10Tbutton,
     file100Tbutton, file1Pbutton, file10Pbutton, file100Pbutton, file1Ebutton,
     fileMaximumButton;            // radio buttons for temporary file size
+  static boolean[] fileAllocated; // true if file was preallocated
   static JFileChooser fileChooser; // asks for input and output file names
+  static byte[] fileData;         // data for each small file
+  static int filesBytes;          // number of bytes in each small file
+  static int filesCount;          // number of small files for "files" test
+  static LongAdder filesDone;     // small files done by current step
+  static AtomicLong filesErrors;  // errors in current step, all threads
+  static long[] fileSizes;        // number of bytes in each temporary file
   static NumberFormat formatComma; // formats with commas (digit grouping)
   static NumberFormat formatPointOne; // formats with one decimal digit
+  static int highestFileCreated;  // highest file number not yet deleted
   static JCheckBox ignoreCheckbox; // GUI enable option "ignore first seconds"
-  static long ignoreDelayMillis;  // start/stop delay time in milliseconds
+  static long ignoreDelayNanos;   // start/stop delay time in nanoseconds
   static JComboBox ignoreDialog;  // GUI select number of seconds to ignore
+  static int ignoreSeconds;       // number of seconds to ignore, or zero
   static long ignoreStartBytes;   // number of bytes after start delay
-  static long ignoreStartClock;   // clock milliseconds after start delay
+  static long ignoreStartClock;   // clock nanoseconds after start delay
   static long ignoreStopBytes;    // number of bytes before stop delay
-  static long ignoreStopClock;    // clock milliseconds before stop delay
+  static long ignoreStopClock;    // clock nanoseconds before stop delay
+  static int interleaveCount;     // files at once for "interleaved" order
+  static boolean keepFlag;        // true if we keep files and a manifest
+  static double lastReadSpeed;    // speed from most recent read pass
+  static double lastWriteSpeed;   // speed from most recent write pass
   static JFrame mainFrame;        // this application's window if GUI
+  static boolean markFlag;        // true if we put headers in each block
   static long maxDataBytes;       // maximum total bytes, all temporary files
+  static int mixPercent;          // percent reads for "mixed" test
+  static AtomicInteger mixReaders; // reader threads still running
+  static AtomicInteger mixWriters; // writer threads still running
+  static JComboBox<String> modeDialog; // GUI select test mode
+  static int modeType;            // test mode: sequential, random, etc
   static boolean mswinFlag;       // true if running on Microsoft Windows
+  static int orderType;           // order for reading: forward, etc
+  static int paceBytes;           // request size for paced write pass, or 0
+  static LongAccumulator paceLag; // latest request behind schedule (ns)
+  static int passState;           // state of most recent read/write pass
+  static JComboBox<String> patternDialog; // GUI select data pattern
+  static int patternType;         // data pattern: zeros, random, etc
+  static int preallocType;        // how files are preallocated, if at all
   static JProgressBar progressBar; // progress bar and status text
   static JCheckBox promptCheckbox; // if we prompt user before reading
+  static boolean promptFlag;      // true if we prompt user before reading
   static long[] queueDataBytes;   // paired pending clock data: byte count
   static long[] queueDataClock;   // paired pending clock data: clock time
   static int queueFirstIndex;     // index of first (oldest) item in queue
   static int queueItemCount;      // total number of items in pending queue
+  static boolean quietFlag;       // true if results are not reported
+  static boolean rateIopsFlag;    // true if <rateTarget> is requests
+  static double rateTarget;       // write bytes or requests per second, or 0
   static JTextField readSpeedText; // average read speed in bytes per second
+  static int repeatCount;         // cycles for each engine, or zero
+  static String resultsFilename;  // append results to this file, or null
+  static java.util.ArrayList<String> resultsList; // results for this test
+  static boolean reuseFlag;       // true if we read files from a manifest
+  static int sampleMillis;        // milliseconds between samples
+  static DriveSpeed1Sampler sampler; // thread that samples byte counts
+  static long[] seriesBytes;      // byte count at end of each interval
+  static long[] seriesClock;      // clock nanoseconds at end of interval
+  static int seriesCount;         // number of entries in <seriesBytes>, etc
   static JButton startButton;     // "Start" button to begin file processing
-  static long startTime;          // starting milliseconds for read/write pass
+  static long startTime;          // starting nanoseconds for read/write pass
   static javax.swing.Timer statusTimer; // timer for updating status message
+  static long stopTime;           // ending nanoseconds for read/write pass
+  static int strideCount;         // buffers skipped for "strided" order
+  static JCheckBox sweepCheckbox; // GUI enable option "sweep sizes"
+  static int sweepMax;            // largest size for sweep, or zero
+  static int sweepMin;            // smallest size for sweep, or zero
+  static long syncBytes;          // force data after this many bytes, or
+                                  // ... -1 at close only, 0 never
+  static LongAdder syncCount;     // number of syncs done by this pass
+  static JComboBox<String> syncDialog; // GUI select when to sync written data
+  static LongAdder syncNanos;     // nanoseconds spent syncing, all threads
+  static int threadCount;         // number of worker threads
+  static JComboBox<String> threadDialog; // GUI select number of worker threads
+  static int timeLimit;           // maximum seconds for each random pass
   static long totalBytesWritten;  // total number of bytes written, all files
+  static int totalFilesCreated;   // highest number of temporary file created
   static long userBytesPrev;      // previous number of bytes reported
   static double userBytesRate;    // current or previous bytes per second
+  static long userWritePrev;      // previous bytes written, mixed test
+  static double userWriteRate;    // bytes written per second, mixed test
+  static LongAdder verifyBlocks;  // number of blocks checked by this pass
+  static JCheckBox verifyCheckbox; // GUI enable option "verify data"
+  static AtomicLong verifyErrors; // number of bad blocks found by this pass
+  static boolean verifyFlag;      // true if we check data when reading
+  static LongAdder verifyNanos;   // nanoseconds spent checking, all threads
+  static long verifySeed;         // run number in each block header
+  static boolean virtualFlag;     // true if we try virtual threads
+  static int warmupCount;         // cycles before each measured cycle
+  static int windowSize;          // bytes in each memory-mapped window
+  static ByteBuffer[] workerBlocks; // data buffers for random tests, or null
+  static ByteBuffer[] workerBuffers; // data buffers for each worker thread
+  static DriveSpeed1Latency[] workerLatency; // request times for each worker
+  static ByteBuffer[][] workerPools; // rotating write buffers for each worker
+  static DriveSpeed1Queue[] workerQueues; // requests for async engine, or null
+  static LongAdder writeBytes;    // bytes written by this pass, mixed test
   static JTextField writeSpeedText; // average write speed in bytes per second
 
 /*
   main() method
 
-  We run as a graphical application only.  Set the window layout and then let
-  the graphical interface run the show.
+  We run as a graphical application, unless the -c option asks for a console
+  application.  Set the window layout and then let the graphical interface run
+  the show.
 */
   public static void main(String[] args)
   {
@@ -207,16 +670,76 @@ public class DriveSpeed1
 
     /* Initialize variables used by both console and GUI applications. */
 
+    blockSize = (int) parseSize(BLOCK_DEFAULT); // default random block size
+    bufferSize = 0x40000;         // default data buffer size (256 KB)
+    bytesAllFiles = new LongAdder(); // shared byte counter for all threads
+    syncCount = new LongAdder();  // shared counters for syncing data
+    syncNanos = new LongAdder();
+    filesDone = new LongAdder();  // shared counters for "files" test
+    filesErrors = new AtomicLong();
+    verifyBlocks = new LongAdder(); // shared counters for checking data
+    verifyErrors = new AtomicLong();
+    paceLag = new LongAccumulator(Math::max, 0); // for rate-limited writes
+    verifyNanos = new LongAdder();
+    mixReaders = new AtomicInteger(); // threads for "mixed" test
+    mixWriters = new AtomicInteger();
+    writeBytes = new LongAdder();
     buttonFont = null;            // by default, don't use customized font
 //  buttonFont = new Font(SYSTEM_FONT, Font.PLAIN, 16); // force default font
     cancelFlag = false;           // don't cancel unless user complains
+    ciPercent = 0.0;              // by default, don't stop repeating early
+    consoleFlag = false;          // by default, run as a graphical application
+    driveList = null;             // there are no drive folders yet
     driveSelection = null;        // there is no writeable drive folder yet
+    asyncDepth = DEFAULT_DEPTH;   // default requests in flight
+    depthList = new int[] {DEFAULT_DEPTH}; // by default, only one depth
+    engineList = new int[] {ENGINE_STREAM}; // by default, only one engine
+    fanoutCount = DEFAULT_FANOUT; // default folders for "files" test
+    filesBytes = DEFAULT_FILE_BYTES; // default size of each small file
+    filesCount = DEFAULT_FILES;   // default number of small files
+    engineType = ENGINE_STREAM;   // by default, use standard byte streams
     eraseState = ERASE_NONE;      // current state in startErase() method
+    evictFlag = false;            // by default, don't clear disk cache
+    evictGlobal = false;          // and never for the whole system
+    compressPercent = DEFAULT_COMPRESS; // percent zeros for "compress"
+    exitStatus = 0;               // assume that console application succeeds
+    ignoreSeconds = Integer.parseInt(IGNORE_DEFAULT); // default start delay
+    interleaveCount = DEFAULT_INTERLEAVE; // default files at once
+    keepFlag = false;             // by default, delete temporary files
+    mainFrame = null;             // there is no GUI window yet
+    maxDataBytes = 0x1900000000L; // default total bytes to write (100 GB)
+    mixPercent = DEFAULT_MIX;     // default percent reads, mixed test
+    modeType = MODE_SEQUENTIAL;   // by default, read and write whole files
+    orderType = ORDER_FORWARD;    // by default, read files front to back
     maximizeFlag = false;         // by default, don't maximize our main window
     mswinFlag = System.getProperty("os.name").startsWith("Windows");
+    patternType = PATTERN_ZEROS;  // by default, write binary zeros
+    preallocType = PREALLOC_NONE; // by default, files grow as written
+    promptFlag = false;           // by default, don't prompt before reading
+    quietFlag = false;            // by default, report all results
+    rateIopsFlag = false;         // by default, writes aren't paced
+    rateTarget = 0.0;
+    repeatCount = 0;              // by default, one cycle and no summary
+    reuseFlag = false;            // by default, write files before reading
+    verifyFlag = false;           // by default, don't check data when reading
+    virtualFlag = true;           // by default, use virtual threads if any
+    warmupCount = 0;              // by default, no warmup cycles
     queueDataBytes = queueDataClock = null; // no pending bytes/clock data
+    sampleMillis = DEFAULT_SAMPLE; // default milliseconds between samples
     speedFont = null;             // by default, don't use customized font
+    sweepMax = sweepMin = 0;      // by default, only one buffer size
+    strideCount = DEFAULT_STRIDE; // default buffers skipped
+    csvFilename = null;           // by default, don't save interval speeds
+    comparePercent = 0;           // by default, don't compare with baseline
+    resultsFilename = null;       // by default, don't save results
+    resultsList = null;
+    seriesBytes = new long[SERIES_START]; // grows if a pass is long
+    seriesClock = new long[SERIES_START];
+    syncBytes = 0;                // by default, don't force data to drive
 //  speedFont = new Font(SYSTEM_FONT, Font.PLAIN, 24); // force default font
+    threadCount = Integer.parseInt(THREAD_DEFAULT); // default worker threads
+    timeLimit = DEFAULT_TIME_LIMIT; // default seconds for each random pass
+    windowSize = DEFAULT_WINDOW;  // default memory-mapped window size
     windowHeight = DEFAULT_HEIGHT; // default window position and size
     windowLeft = DEFAULT_LEFT;
     windowTop = DEFAULT_TOP;
@@ -251,1108 +774,5697 @@ public class DriveSpeed1
         System.exit(0);           // exit application after printing help
       }
 
-      else if (word.startsWith("-u") || (mswinFlag && word.startsWith("/u")))
+      else if (word.equals("-bench") || (mswinFlag && word.equals("/bench")))
       {
-        /* This option is followed by a font point size that will be used for
-        buttons, dialogs, labels, etc. */
+        /* Compare the Java I/O methods with settings that are good for that.
+        Options that come later can change these. */
+
+        consoleFlag = true;       // only as a console application
+        engineList = ENGINE_BENCH; // all engines that use the disk cache
+        evictFlag = false;        // measure Java, not the drive
+        ignoreSeconds = 0;        // cycles are short, keep all data
+        maxDataBytes = BENCH_TOTAL; // total bytes for each cycle
+        sweepMax = BENCH_MAX;     // buffer sizes from graphical interface
+        sweepMin = BENCH_MIN;
+        warmupCount = BENCH_WARMUP; // let the Java compiler do its work
+      }
 
-        int size = -1;            // default value for font point size
+      else if (word.startsWith("-block=")
+        || (mswinFlag && word.startsWith("/block=")))
+      {
+        /* This option is followed by the block size for random tests. */
+
+        long size = parseSize(word.substring(7)); // -1 if not a valid size
+        if ((size < MIN_BLOCK_SIZE) || (size > MAX_BLOCK_SIZE))
+        {
+          System.err.println("Random block size must be from 4K to 1M: "
+            + args[i]);           // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        blockSize = (int) size;   // safe because we checked the limits
+      }
+
+      else if (word.startsWith("-buffer=")
+        || (mswinFlag && word.startsWith("/buffer=")))
+      {
+        /* This option is followed by the size of the data buffer in bytes,
+        with an optional suffix for kilobytes, megabytes, etc. */
+
+        long size = parseSize(word.substring(8)); // -1 if not a valid size
+        if ((size < MIN_BUFFER_SIZE) || (size > MAX_BUFFER_SIZE))
+        {
+          System.err.println("Data buffer size must be from 1K to 1G: "
+            + args[i]);           // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        bufferSize = (int) size;  // safe because we checked the limits
+      }
+
+      else if (word.equals("-c") || (mswinFlag && word.equals("/c")))
+        consoleFlag = true;       // run as a console application, no GUI
+
+      else if (word.startsWith("-ci=")
+        || (mswinFlag && word.startsWith("/ci=")))
+      {
+        /* This option is followed by the target width of the confidence
+        interval, as a percent of the mean speed (plus or minus). */
+
+        double size = -1.0;       // default value for percentage
+        try                       // try to parse remainder as decimal number
+        {
+          size = Double.parseDouble(word.substring(4));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1.0;            // set result to an illegal value
+        }
+        if (!((size > 0.0) && (size <= 100.0))) // also catches "NaN"
+        {
+          System.err.println("Confidence interval must be from 0 to 100"
+            + " percent: " + args[i]); // notify user of limits
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        ciPercent = size;         // save percent of mean speed
+      }
+
+      else if (word.startsWith("-compare=")
+        || (mswinFlag && word.startsWith("/compare=")))
+      {
+        /* This option is followed by the percent drop in speed, compared to
+        the baseline, that is called a regression. */
+
+        int size = -1;            // default value for percentage
         try                       // try to parse remainder as unsigned integer
         {
-          size = Integer.parseInt(word.substring(2));
+          size = Integer.parseInt(word.substring(9));
         }
         catch (NumberFormatException nfe) // if not a number or bad syntax
         {
           size = -1;              // set result to an illegal value
         }
-        if ((size < 10) || (size > 99))
+        if ((size < 1) || (size > 99))
         {
-          System.err.println("Dialog font size must be from 10 to 99: "
-            + args[i]);           // notify user of our arbitrary limits
+          System.err.println("Regression tolerance must be from 1 to 99"
+            + " percent: " + args[i]); // notify user of limits
           showHelp();             // show help summary
           System.exit(-1);        // exit application after printing help
         }
-        buttonFont = new Font(SYSTEM_FONT, Font.PLAIN, size); // for big sizes
-//      buttonFont = new Font(SYSTEM_FONT, Font.BOLD, size); // for small sizes
-        speedFont = new Font(SYSTEM_FONT, Font.PLAIN, (int) (size * 1.5));
+        comparePercent = size;    // save percent tolerance
       }
 
-      else if (word.startsWith("-w") || (mswinFlag && word.startsWith("/w")))
+      else if (word.startsWith("-compress=")
+        || (mswinFlag && word.startsWith("/compress=")))
       {
-        /* This option is followed by a list of four numbers for the initial
-        window position and size.  All values are accepted, but small heights
-        or widths will later force the minimum packed size for the layout. */
+        /* This option is followed by the percentage of zeros in each chunk
+        for the "compress" data pattern. */
 
-        Pattern pattern = Pattern.compile(
-          "\\s*\\(\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*\\)\\s*");
-        Matcher matcher = pattern.matcher(word.substring(2)); // parse option
-        if (matcher.matches())    // if option has proper syntax
+        int size = -1;            // default value for percentage
+        try                       // try to parse remainder as unsigned integer
         {
-          windowLeft = Integer.parseInt(matcher.group(1));
-          windowTop = Integer.parseInt(matcher.group(2));
-          windowWidth = Integer.parseInt(matcher.group(3));
-          windowHeight = Integer.parseInt(matcher.group(4));
+          size = Integer.parseInt(word.substring(10));
         }
-        else                      // bad syntax or too many digits
+        catch (NumberFormatException nfe) // if not a number or bad syntax
         {
-          System.err.println("Invalid window position or size: " + args[i]);
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 0) || (size > MAX_COMPRESS))
+        {
+          System.err.println("Percent zeros must be from 0 to "
+            + MAX_COMPRESS + ": " + args[i]); // notify user of limits
           showHelp();             // show help summary
           System.exit(-1);        // exit application after printing help
         }
+        compressPercent = size;   // save percentage of zeros
       }
 
-      else if (word.equals("-x") || (mswinFlag && word.equals("/x")))
-        maximizeFlag = true;      // true if we maximize our main window
-
-      else                        // parameter is not a recognized option
+      else if (word.startsWith("-csv=")
+        || (mswinFlag && word.startsWith("/csv=")))
       {
-        System.err.println("Option not recognized: " + args[i]);
-        showHelp();               // show help summary
-        System.exit(-1);          // exit application after printing help
+        /* This option is followed by a file name for saving the speed in
+        each interval of each pass.  Use original case. */
+
+        csvFilename = args[i].substring(5);
+        if (csvFilename.length() == 0) // empty name turns this off
+          csvFilename = null;
       }
-    }
 
-    /* Open the graphical user interface (GUI).  The standard Java style is the
-    most reliable, but you can switch to something closer to the local system,
-    if you want. */
+      else if (word.startsWith("-depth=")
+        || (mswinFlag && word.startsWith("/depth=")))
+      {
+        /* This option is followed by the number of requests in flight for
+        the async engine, or a list of numbers separated by commas. */
 
-//  try
-//  {
-//    UIManager.setLookAndFeel(
-//      UIManager.getCrossPlatformLookAndFeelClassName());
-////    UIManager.getSystemLookAndFeelClassName());
-//  }
-//  catch (Exception ulafe)
-//  {
-//    System.err.println("Unsupported Java look-and-feel: " + ulafe);
-//  }
+        String[] numbers = word.substring(7).split(","); // one or more
+        depthList = new int[numbers.length]; // depths in same order
+        for (int j = 0; j < numbers.length; j ++)
+        {
+          try                     // try to parse as unsigned integer
+          {
+            depthList[j] = Integer.parseInt(numbers[j].trim());
+          }
+          catch (NumberFormatException nfe) // if not a number or bad syntax
+          {
+            depthList[j] = -1;    // set result to an illegal value
+          }
+          if ((depthList[j] < 1) || (depthList[j] > MAX_DEPTH))
+          {
+            System.err.println("Depth must be from 1 to " + MAX_DEPTH
+              + " requests: " + args[i]); // notify user of error
+            showHelp();           // show help summary
+            System.exit(-1);      // exit application after printing help
+          }
+        }
+        asyncDepth = depthList[0]; // first depth for graphical interface
+      }
 
-    /* Initialize shared graphical objects. */
+      else if (word.startsWith("-engine=")
+        || (mswinFlag && word.startsWith("/engine=")))
+      {
+        /* This option is followed by the name of an I/O engine, or a list of
+        names separated by commas, to compare engines in one run. */
 
-    action = new DriveSpeed1User(); // create our shared action listener
-    fileChooser = new JFileChooser(); // create our shared file chooser
-    statusTimer = new javax.swing.Timer(TIMER_DELAY, action);
-                                  // update status message on clock ticks only
+        String[] names = word.substring(8).split(","); // one or more names
+        engineList = new int[names.length]; // engine numbers in same order
+        for (int j = 0; j < names.length; j ++)
+        {
+          engineList[j] = -1;     // assume that name is not found
+          for (int k = 0; k < ENGINE_CHOICES.length; k ++)
+            if (ENGINE_CHOICES[k].equals(names[j].trim()))
+              engineList[j] = k;  // found name, remember engine number
+          if (engineList[j] < 0)  // was the name found?
+          {
+            System.err.println("Unknown I/O engine: " + args[i]);
+            showHelp();           // show help summary
+            System.exit(-1);      // exit application after printing help
+          }
+        }
+        engineType = engineList[0]; // first engine for graphical interface
+      }
 
-    /* Create the graphical interface as a series of little panels inside
-    bigger panels.  The intermediate panel names are of no lasting importance
-    and hence are only numbered (panel01, panel02, etc). */
+      else if (word.equals("-evict=all")
+        || (mswinFlag && word.equals("/evict=all")))
+      {
+        evictFlag = true;         // clear disk cache before reading
+        evictGlobal = true;       // for whole system, if per-file fails
+      }
 
-    /* Create a vertical box to stack buttons and options. */
+      else if (word.equals("-evict=off")
+        || (mswinFlag && word.equals("/evict=off")))
+        evictFlag = false;        // don't clear disk cache before reading
 
-    JPanel panel01 = new JPanel();
-    panel01.setLayout(new BoxLayout(panel01, BoxLayout.Y_AXIS));
+      else if (word.equals("-evict=on")
+        || (mswinFlag && word.equals("/evict=on")))
+        evictFlag = true;         // clear disk cache before reading
 
-    JPanel panel02 = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
-    JLabel label03 = new JLabel("Drive Speed Test");
-    if (buttonFont != null) label03.setFont(buttonFont);
-    panel02.add(label03);         // label doesn't center properly by itself
-    panel01.add(panel02);         // so put label inside panel with center
-    panel01.add(Box.createVerticalStrut(10)); // space between panels
+      else if (word.startsWith("-fanout=")
+        || (mswinFlag && word.startsWith("/fanout=")))
+      {
+        /* This option is followed by the number of folders for small files.
+        */
 
-    /* Options for changing the data buffer size.  The user interface looks
-    best with five choices enabled.  One of those should be pre-selected.
+        int size = -1;            // default value for number of folders
+        try                       // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(8));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 1) || (size > MAX_FANOUT))
+        {
+          System.err.println("Fanout must be from 1 to " + MAX_FANOUT
+            + " folders: " + args[i]); // notify user of error
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        fanoutCount = size;       // save number of folders
+      }
 
-    The largest buffer size that normally works is 64 MB in Java 1.4 to 7, if
-    the run-time heap size is also sufficiently large (the default for Java 6
-    or later).  Buffers from 128 to 512 MB sometimes work when the heap is
-    bigger but not too big (?).  The 1 GB size never worked: an "out of memory"
-    exception occurs in the java.io.FileOutputStream.write() native method. */
+      else if (word.startsWith("-files=")
+        || (mswinFlag && word.startsWith("/files=")))
+      {
+        /* This option is followed by the number of small files, with an
+        optional suffix. */
 
-    JPanel panel11 = new JPanel();
-    panel11.setBorder(BorderFactory.createTitledBorder(null,
-      " Data Buffer Size ", TitledBorder.DEFAULT_JUSTIFICATION,
-      TitledBorder.DEFAULT_POSITION, buttonFont));
-    panel11.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 0));
-//  panel11.setLayout(new GridLayout(0, 5)); // if more than 6 choices
-    panel11.setToolTipText("Size of read-write data buffer in bytes.");
+        long size = parseSize(word.substring(7)); // K means 1,024 files
+        if ((size < 1) || (size > MAX_FILES))
+        {
+          System.err.println("Number of files must be from 1 to "
+            + formatComma.format(MAX_FILES) + ": " + args[i]);
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        filesCount = (int) size;  // safe because we checked the limits
+      }
 
-    ButtonGroup group12 = new ButtonGroup();
+      else if (word.startsWith("-filesize=")
+        || (mswinFlag && word.startsWith("/filesize=")))
+      {
+        /* This option is followed by the size of each small file, with an
+        optional suffix.  Zero is allowed, for only metadata. */
 
-    buffer1Kbutton = new JRadioButton("1 KB");
-    if (buttonFont != null) buffer1Kbutton.setFont(buttonFont);
-    group12.add(buffer1Kbutton);
-//  panel11.add(buffer1Kbutton);  // currently disabled: too small
+        long size = parseSize(word.substring(10));
+        if ((size < 0) || (size > MAX_FILE_BYTES))
+        {
+          System.err.println("Small file size must be from 0 to "
+            + formatComma.format(MAX_FILE_BYTES) + " bytes: " + args[i]);
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        filesBytes = (int) size;  // safe because we checked the limits
+      }
 
-    buffer2Kbutton = new JRadioButton("2 KB");
-    if (buttonFont != null) buffer2Kbutton.setFont(buttonFont);
-    group12.add(buffer2Kbutton);
-//  panel11.add(buffer2Kbutton);  // currently disabled: too small
+      else if (word.startsWith("-folder=")
+        || (mswinFlag && word.startsWith("/folder=")))
+      {
+        /* This option is followed by the name of a writeable drive folder.
+        Use the original parameter, because file names may depend on case.
+        More than one folder may be given, to test them at the same time. */
+
+        File folder = new File(args[i].substring(8));
+        if (driveList == null)    // first folder from the command line
+          driveList = new File[] {folder};
+        else                      // add another folder to test at same time
+        {
+          driveList = java.util.Arrays.copyOf(driveList,
+            (driveList.length + 1));
+          driveList[driveList.length - 1] = folder;
+        }
+        driveSelection = driveList[0]; // first folder is for the GUI
+      }
 
-    buffer4Kbutton = new JRadioButton("4 KB");
-    if (buttonFont != null) buffer4Kbutton.setFont(buttonFont);
-    group12.add(buffer4Kbutton);
-    panel11.add(buffer4Kbutton);
+      else if (word.startsWith("-ignore=")
+        || (mswinFlag && word.startsWith("/ignore=")))
+      {
+        /* This option is followed by the number of seconds to ignore at the
+        start and end of each read/write pass.  Zero turns this off. */
 
-    buffer8Kbutton = new JRadioButton("8 KB");
-    if (buttonFont != null) buffer8Kbutton.setFont(buttonFont);
-    group12.add(buffer8Kbutton);
-//  panel11.add(buffer8Kbutton);  // currently disabled: too similar
+        int size = -1;            // default value for number of seconds
+        try                       // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(8));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 0) || (size > MAX_IGNORE_SECONDS))
+        {
+          System.err.println("Seconds to ignore must be from 0 to "
+            + MAX_IGNORE_SECONDS + ": " + args[i]); // notify user of limits
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        ignoreSeconds = size;     // save number of seconds to ignore
+      }
 
-    buffer16Kbutton = new JRadioButton("16 KB");
-    if (buttonFont != null) buffer16Kbutton.setFont(buttonFont);
-    group12.add(buffer16Kbutton);
-    panel11.add(buffer16Kbutton);
+      else if (word.startsWith("-interleave=")
+        || (mswinFlag && word.startsWith("/interleave=")))
+      {
+        /* This option is followed by the number of files that each thread
+        reads at the same time, for the "interleaved" order. */
 
-    buffer32Kbutton = new JRadioButton("32 KB");
-    if (buttonFont != null) buffer32Kbutton.setFont(buttonFont);
-    group12.add(buffer32Kbutton);
-//  panel11.add(buffer32Kbutton); // currently disabled: too similar
+        int size = -1;            // default value for number of files
+        try                       // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(12));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 2) || (size > MAX_INTERLEAVE))
+        {
+          System.err.println("Interleave must be from 2 to " + MAX_INTERLEAVE
+            + " files: " + args[i]); // notify user of error
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        interleaveCount = size;   // save number of files
+      }
 
-    buffer64Kbutton = new JRadioButton("64 KB");
-    if (buttonFont != null) buffer64Kbutton.setFont(buttonFont);
-    group12.add(buffer64Kbutton);
-    panel11.add(buffer64Kbutton);
+      else if (word.equals("-keep") || (mswinFlag && word.equals("/keep")))
+        keepFlag = true;          // keep files and write manifest
 
-    buffer128Kbutton = new JRadioButton("128 KB");
-    if (buttonFont != null) buffer128Kbutton.setFont(buttonFont);
-    group12.add(buffer128Kbutton);
-//  panel11.add(buffer128Kbutton); // currently disabled: too similar
+      else if (word.startsWith("-mix=")
+        || (mswinFlag && word.startsWith("/mix=")))
+      {
+        /* This option is followed by the percent of bytes that are read in a
+        mixed test, optionally with the percent written, as in 70/30. */
 
-    buffer256Kbutton = new JRadioButton("256 KB", true);
-    if (buttonFont != null) buffer256Kbutton.setFont(buttonFont);
-    group12.add(buffer256Kbutton);
-    panel11.add(buffer256Kbutton);
+        String[] parts = word.substring(5).split("/", -1); // one or two
+        int size = -1;            // default value for percent reads
+        try                       // try to parse as unsigned integers
+        {
+          size = Integer.parseInt(parts[0]);
+          if ((parts.length > 2) || ((parts.length == 2)
+            && ((size + Integer.parseInt(parts[1])) != 100)))
+          {
+            size = -1;            // percents must add up to 100
+          }
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 0) || (size > 100))
+        {
+          System.err.println("Mix must be percent reads from 0 to 100, or"
+            + " reads/writes: " + args[i]); // notify user of error
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        mixPercent = size;        // save percent reads
+      }
 
-    buffer512Kbutton = new JRadioButton("512 KB");
-    if (buttonFont != null) buffer512Kbutton.setFont(buttonFont);
-    group12.add(buffer512Kbutton);
-//  panel11.add(buffer512Kbutton); // currently disabled: too similar
+      else if (word.startsWith("-mode=")
+        || (mswinFlag && word.startsWith("/mode=")))
+      {
+        /* This option is followed by the name of a test mode. */
 
-    buffer1Mbutton = new JRadioButton("1 MB");
-    if (buttonFont != null) buffer1Mbutton.setFont(buttonFont);
-    group12.add(buffer1Mbutton);
-    panel11.add(buffer1Mbutton);
+        modeType = -1;            // assume that name is not found
+        for (int k = 0; k < MODE_CHOICES.length; k ++)
+          if (MODE_CHOICES[k].equals(word.substring(6)))
+            modeType = k;         // found name, remember mode number
+        if (modeType < 0)         // was the name found?
+        {
+          System.err.println("Unknown test mode: " + args[i]);
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+      }
+
+      else if (word.startsWith("-order=")
+        || (mswinFlag && word.startsWith("/order=")))
+      {
+        /* This option is followed by the name of an order for reading. */
+
+        orderType = -1;           // assume that name is not found
+        for (int k = 0; k < ORDER_CHOICES.length; k ++)
+          if (ORDER_CHOICES[k].equals(word.substring(7)))
+            orderType = k;        // found name, remember order number
+        if (orderType < 0)        // was the name found?
+        {
+          System.err.println("Unknown order for reading: " + args[i]);
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+      }
+
+      else if (word.startsWith("-pattern=")
+        || (mswinFlag && word.startsWith("/pattern=")))
+      {
+        /* This option is followed by the name of a data pattern. */
+
+        patternType = -1;         // assume that name is not found
+        for (int k = 0; k < PATTERN_CHOICES.length; k ++)
+          if (PATTERN_CHOICES[k].equals(word.substring(9)))
+            patternType = k;      // found name, remember pattern number
+        if (patternType < 0)      // was the name found?
+        {
+          System.err.println("Unknown data pattern: " + args[i]);
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+      }
+
+      else if (word.startsWith("-prealloc=")
+        || (mswinFlag && word.startsWith("/prealloc=")))
+      {
+        /* This option is followed by how files are preallocated. */
+
+        preallocType = -1;        // assume that name is not found
+        for (int k = 0; k < PREALLOC_CHOICES.length; k ++)
+          if (PREALLOC_CHOICES[k].equals(word.substring(10)))
+            preallocType = k;     // found name, remember choice number
+        if (preallocType < 0)     // was the name found?
+        {
+          System.err.println("Preallocation must be none, size, or fill: "
+            + args[i]);           // notify user of error
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+      }
+
+      else if (word.startsWith("-rate=")
+        || (mswinFlag && word.startsWith("/rate=")))
+      {
+        /* This option is followed by the target rate for writing, as bytes
+        per second with an optional suffix, or requests per second. */
+
+        String value = word.substring(6);
+        long size = -1;           // default value for rate
+        rateIopsFlag = value.endsWith("iops"); // requests, not bytes
+        if (rateIopsFlag)         // plain number of requests per second
+        {
+          try { size = Long.parseLong(value.substring(0, (value.length()
+            - 4))); }
+          catch (NumberFormatException nfe) { size = -1; }
+        }
+        else                      // bytes with suffix K, M, G, etc
+          size = parseSize(value);
+        if (size <= 0)
+        {
+          System.err.println("Write rate must be bytes or requests per"
+            + " second: " + args[i]); // notify user of error
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        rateTarget = size;        // save rate for all writer threads
+      }
+
+      else if (word.startsWith("-repeat=")
+        || (mswinFlag && word.startsWith("/repeat=")))
+      {
+        /* This option is followed by the number of cycles for each engine.
+        With the -ci option, this is the most cycles. */
+
+        int size = -1;            // default value for number of cycles
+        try                       // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(8));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 1) || (size > MAX_REPEAT))
+        {
+          System.err.println("Number of repeats must be from 1 to "
+            + MAX_REPEAT + ": " + args[i]); // notify user of limits
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        repeatCount = size;       // save number of cycles
+      }
+
+      else if (word.startsWith("-results=")
+        || (mswinFlag && word.startsWith("/results=")))
+      {
+        /* This option is followed by a file name for saving the results of
+        each test.  Use original case. */
+
+        resultsFilename = args[i].substring(9);
+        if (resultsFilename.length() == 0) // empty name turns this off
+          resultsFilename = null;
+      }
+
+      else if (word.equals("-reuse") || (mswinFlag && word.equals("/reuse")))
+        reuseFlag = true;         // read files kept by an earlier test
+
+      else if (word.startsWith("-sample=")
+        || (mswinFlag && word.startsWith("/sample=")))
+      {
+        /* This option is followed by the number of milliseconds between
+        samples of the byte count. */
+
+        int size = -1;            // default value for milliseconds
+        try                       // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(8));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < MIN_SAMPLE) || (size > MAX_SAMPLE))
+        {
+          System.err.println("Sample interval must be from " + MIN_SAMPLE
+            + " to " + MAX_SAMPLE + " milliseconds: " + args[i]);
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        sampleMillis = size;      // save milliseconds between samples
+      }
+
+      else if (word.startsWith("-stride=")
+        || (mswinFlag && word.startsWith("/stride=")))
+      {
+        /* This option is followed by the number of buffers skipped after
+        each buffer read, for the "strided" order. */
+
+        int size = -1;            // default value for number of buffers
+        try                       // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(8));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 1) || (size > MAX_STRIDE))
+        {
+          System.err.println("Stride must be from 1 to " + MAX_STRIDE
+            + " buffers: " + args[i]); // notify user of error
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        strideCount = size;       // save number of buffers
+      }
+
+      else if (word.startsWith("-sweep=")
+        || (mswinFlag && word.startsWith("/sweep=")))
+      {
+        /* This option is followed by the smallest and largest sizes for a
+        sweep, separated by a colon (:), each with an optional suffix. */
+
+        String[] sizes = word.substring(7).split(":", -1);
+        long first = (sizes.length == 2) ? parseSize(sizes[0]) : -1;
+        long last = (sizes.length == 2) ? parseSize(sizes[1]) : -1;
+        if ((first < MIN_BUFFER_SIZE) || (last > MAX_BUFFER_SIZE)
+          || (first > last))
+        {
+          System.err.println("Sweep must be two sizes from "
+            + formatComma.format(MIN_BUFFER_SIZE) + " to "
+            + formatComma.format(MAX_BUFFER_SIZE) + " bytes: " + args[i]);
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        sweepMin = (int) first;   // safe because we checked the limits
+        sweepMax = (int) last;
+      }
+
+      else if (word.startsWith("-sync=")
+        || (mswinFlag && word.startsWith("/sync=")))
+      {
+        /* This option is followed by "none", "close", or the number of bytes
+        written between each sync, with an optional suffix. */
+
+        String value = word.substring(6);
+        if (value.equals("none"))
+          syncBytes = 0;          // never force data to drive
+        else if (value.equals("close"))
+          syncBytes = -1;         // force data when closing each file
+        else if ((syncBytes = parseSize(value)) <= 0)
+        {
+          System.err.println("Sync must be none, close, or a size: "
+            + args[i]);           // notify user of error
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+      }
+
+      else if (word.startsWith("-threads=")
+        || (mswinFlag && word.startsWith("/threads=")))
+      {
+        /* This option is followed by the number of worker threads. */
+
+        int size = -1;            // default value for number of threads
+        try                       // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(9));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 1) || (size > MAX_THREAD_COUNT))
+        {
+          System.err.println("Number of threads must be from 1 to "
+            + MAX_THREAD_COUNT + ": " + args[i]); // notify user of limits
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        threadCount = size;       // save number of worker threads
+      }
+
+      else if (word.startsWith("-time=")
+        || (mswinFlag && word.startsWith("/time=")))
+      {
+        /* This option is followed by the maximum number of seconds for each
+        random pass. */
+
+        int size = -1;            // default value for number of seconds
+        try                       // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(6));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 1) || (size > MAX_TIME_LIMIT))
+        {
+          System.err.println("Time limit must be from 1 to " + MAX_TIME_LIMIT
+            + " seconds: " + args[i]); // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        timeLimit = size;         // save maximum seconds for random pass
+      }
+
+      else if (word.startsWith("-total=")
+        || (mswinFlag && word.startsWith("/total=")))
+      {
+        /* This option is followed by the total number of bytes to write, for
+        all temporary files, or "max" to write until the drive is full. */
+
+        long size;                // parsed number of bytes
+        if (word.substring(7).startsWith("max"))
+          size = MAX_FILE_SIZE;   // safe positive 64-bit integer
+        else
+          size = parseSize(word.substring(7)); // -1 if not a valid size
+        if ((size < MIN_BUFFER_SIZE) || (size > MAX_FILE_SIZE))
+        {
+          System.err.println("Invalid total number of bytes to write: "
+            + args[i]);           // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        maxDataBytes = size;      // save maximum total bytes, all files
+      }
+
+      else if (word.equals("-verify") || (mswinFlag && word.equals("/verify")))
+        verifyFlag = true;        // check data in each block when reading
+
+      else if (word.equals("-virtual=off")
+        || (mswinFlag && word.equals("/virtual=off")))
+        virtualFlag = false;      // always use a pool of normal threads
+
+      else if (word.equals("-virtual=on")
+        || (mswinFlag && word.equals("/virtual=on")))
+        virtualFlag = true;       // use virtual threads if Java has them
+
+      else if (word.startsWith("-window=")
+        || (mswinFlag && word.startsWith("/window=")))
+      {
+        /* This option is followed by the size of each memory-mapped window,
+        for the "mapped" engine. */
+
+        long size = parseSize(word.substring(8)); // -1 if not a valid size
+        if ((size < MIN_BLOCK_SIZE) || (size > MAX_BUFFER_SIZE))
+        {
+          System.err.println("Memory-mapped window must be from 4K to 1G: "
+            + args[i]);           // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        windowSize = (int) size;  // safe because we checked the limits
+      }
+
+      else if (word.startsWith("-u") || (mswinFlag && word.startsWith("/u")))
+      {
+        /* This option is followed by a font point size that will be used for
+        buttons, dialogs, labels, etc. */
+
+        int size = -1;            // default value for font point size
+        try                       // try to parse remainder as unsigned integer
+        {
+          size = Integer.parseInt(word.substring(2));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          size = -1;              // set result to an illegal value
+        }
+        if ((size < 10) || (size > 99))
+        {
+          System.err.println("Dialog font size must be from 10 to 99: "
+            + args[i]);           // notify user of our arbitrary limits
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+        buttonFont = new Font(SYSTEM_FONT, Font.PLAIN, size); // for big sizes
+//      buttonFont = new Font(SYSTEM_FONT, Font.BOLD, size); // for small sizes
+        speedFont = new Font(SYSTEM_FONT, Font.PLAIN, (int) (size * 1.5));
+      }
+
+      else if (word.startsWith("-w") || (mswinFlag && word.startsWith("/w")))
+      {
+        /* This option is followed by a list of four numbers for the initial
+        window position and size.  All values are accepted, but small heights
+        or widths will later force the minimum packed size for the layout. */
+
+        Pattern pattern = Pattern.compile(
+          "\\s*\\(\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*\\)\\s*");
+        Matcher matcher = pattern.matcher(word.substring(2)); // parse option
+        if (matcher.matches())    // if option has proper syntax
+        {
+          windowLeft = Integer.parseInt(matcher.group(1));
+          windowTop = Integer.parseInt(matcher.group(2));
+          windowWidth = Integer.parseInt(matcher.group(3));
+          windowHeight = Integer.parseInt(matcher.group(4));
+        }
+        else                      // bad syntax or too many digits
+        {
+          System.err.println("Invalid window position or size: " + args[i]);
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+      }
+
+      else if (word.equals("-x") || (mswinFlag && word.equals("/x")))
+        maximizeFlag = true;      // true if we maximize our main window
+
+      else                        // parameter is not a recognized option
+      {
+        System.err.println("Option not recognized: " + args[i]);
+        showHelp();               // show help summary
+        System.exit(-1);          // exit application after printing help
+      }
+    }
+
+    /* Run as a console application if that was requested.  We don't create
+    any graphical objects, so this works on servers without a display. */
+
+    if (consoleFlag)              // if we are a console application
+    {
+      if (driveSelection == null) // there must be a drive folder
+      {
+        System.err.println(
+          "Console application needs a drive folder (-folder option).");
+        showHelp();               // show help summary
+        System.exit(-1);          // exit application after printing help
+      }
+      startErase();               // do all reading and writing in this thread
+      System.exit(exitStatus);    // exit with status from startErase()
+    }
+
+    /* Open the graphical user interface (GUI).  The standard Java style is the
+    most reliable, but you can switch to something closer to the local system,
+    if you want. */
+
+//  try
+//  {
+//    UIManager.setLookAndFeel(
+//      UIManager.getCrossPlatformLookAndFeelClassName());
+////    UIManager.getSystemLookAndFeelClassName());
+//  }
+//  catch (Exception ulafe)
+//  {
+//    System.err.println("Unsupported Java look-and-feel: " + ulafe);
+//  }
+
+    /* Initialize shared graphical objects. */
+
+    action = new DriveSpeed1User(); // create our shared action listener
+    fileChooser = new JFileChooser(); // create our shared file chooser
+    statusTimer = new javax.swing.Timer(TIMER_DELAY, action);
+                                  // update status message on clock ticks only
+
+    /* Create the graphical interface as a series of little panels inside
+    bigger panels.  The intermediate panel names are of no lasting importance
+    and hence are only numbered (panel01, panel02, etc). */
+
+    /* Create a vertical box to stack buttons and options. */
+
+    JPanel panel01 = new JPanel();
+    panel01.setLayout(new BoxLayout(panel01, BoxLayout.Y_AXIS));
+
+    JPanel panel02 = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
+    JLabel label03 = new JLabel("Drive Speed Test");
+    if (buttonFont != null) label03.setFont(buttonFont);
+    panel02.add(label03);         // label doesn't center properly by itself
+    panel01.add(panel02);         // so put label inside panel with center
+    panel01.add(Box.createVerticalStrut(10)); // space between panels
+
+    /* Options for changing the data buffer size.  The user interface looks
+    best with five choices enabled.  One of those should be pre-selected.
+
+    The largest buffer size that normally works is 64 MB in Java 1.4 to 7, if
+    the run-time heap size is also sufficiently large (the default for Java 6
+    or later).  Buffers from 128 to 512 MB sometimes work when the heap is
+    bigger but not too big (?).  The 1 GB size never worked: an "out of memory"
+    exception occurs in the java.io.FileOutputStream.write() native method.
+    That method copies the Java array into native memory on each call.  The
+    "channel" engine has no such copy, and works up to 1 GB, limited by the
+    maximum direct memory (default is the same as the maximum heap size). */
+
+    JPanel panel11 = new JPanel();
+    panel11.setBorder(BorderFactory.createTitledBorder(null,
+      " Data Buffer Size ", TitledBorder.DEFAULT_JUSTIFICATION,
+      TitledBorder.DEFAULT_POSITION, buttonFont));
+    panel11.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 0));
+//  panel11.setLayout(new GridLayout(0, 5)); // if more than 6 choices
+    panel11.setToolTipText("Size of read-write data buffer in bytes.");
+
+    ButtonGroup group12 = new ButtonGroup();
+
+    buffer1Kbutton = new JRadioButton("1 KB");
+    if (buttonFont != null) buffer1Kbutton.setFont(buttonFont);
+    group12.add(buffer1Kbutton);
+//  panel11.add(buffer1Kbutton);  // currently disabled: too small
+
+    buffer2Kbutton = new JRadioButton("2 KB");
+    if (buttonFont != null) buffer2Kbutton.setFont(buttonFont);
+    group12.add(buffer2Kbutton);
+//  panel11.add(buffer2Kbutton);  // currently disabled: too small
+
+    buffer4Kbutton = new JRadioButton("4 KB");
+    if (buttonFont != null) buffer4Kbutton.setFont(buttonFont);
+    group12.add(buffer4Kbutton);
+    panel11.add(buffer4Kbutton);
+
+    buffer8Kbutton = new JRadioButton("8 KB");
+    if (buttonFont != null) buffer8Kbutton.setFont(buttonFont);
+    group12.add(buffer8Kbutton);
+//  panel11.add(buffer8Kbutton);  // currently disabled: too similar
+
+    buffer16Kbutton = new JRadioButton("16 KB");
+    if (buttonFont != null) buffer16Kbutton.setFont(buttonFont);
+    group12.add(buffer16Kbutton);
+    panel11.add(buffer16Kbutton);
+
+    buffer32Kbutton = new JRadioButton("32 KB");
+    if (buttonFont != null) buffer32Kbutton.setFont(buttonFont);
+    group12.add(buffer32Kbutton);
+//  panel11.add(buffer32Kbutton); // currently disabled: too similar
+
+    buffer64Kbutton = new JRadioButton("64 KB");
+    if (buttonFont != null) buffer64Kbutton.setFont(buttonFont);
+    group12.add(buffer64Kbutton);
+    panel11.add(buffer64Kbutton);
+
+    buffer128Kbutton = new JRadioButton("128 KB");
+    if (buttonFont != null) buffer128Kbutton.setFont(buttonFont);
+    group12.add(buffer128Kbutton);
+//  panel11.add(buffer128Kbutton); // currently disabled: too similar
+
+    buffer256Kbutton = new JRadioButton("256 KB", true);
+    if (buttonFont != null) buffer256Kbutton.setFont(buttonFont);
+    group12.add(buffer256Kbutton);
+    panel11.add(buffer256Kbutton);
+
+    buffer512Kbutton = new JRadioButton("512 KB");
+    if (buttonFont != null) buffer512Kbutton.setFont(buttonFont);
+    group12.add(buffer512Kbutton);
+//  panel11.add(buffer512Kbutton); // currently disabled: too similar
+
+    buffer1Mbutton = new JRadioButton("1 MB");
+    if (buttonFont != null) buffer1Mbutton.setFont(buttonFont);
+    group12.add(buffer1Mbutton);
+    panel11.add(buffer1Mbutton);
+
+    buffer2Mbutton = new JRadioButton("2 MB");
+    if (buttonFont != null) buffer2Mbutton.setFont(buttonFont);
+    group12.add(buffer2Mbutton);
+//  panel11.add(buffer2Mbutton);  // currently disabled: too similar
+
+    buffer4Mbutton = new JRadioButton("4 MB");
+    if (buttonFont != null) buffer4Mbutton.setFont(buttonFont);
+    group12.add(buffer4Mbutton);
+    panel11.add(buffer4Mbutton);
+
+    buffer8Mbutton = new JRadioButton("8 MB");
+    if (buttonFont != null) buffer8Mbutton.setFont(buttonFont);
+    group12.add(buffer8Mbutton);
+//  panel11.add(buffer8Mbutton);  // currently disabled: too similar
+
+    buffer16Mbutton = new JRadioButton("16 MB");
+    if (buttonFont != null) buffer16Mbutton.setFont(buttonFont);
+    group12.add(buffer16Mbutton);
+//  panel11.add(buffer16Mbutton); // currently disabled: too big
+
+    buffer32Mbutton = new JRadioButton("32 MB");
+    if (buttonFont != null) buffer32Mbutton.setFont(buttonFont);
+    group12.add(buffer32Mbutton);
+//  panel11.add(buffer32Mbutton); // currently disabled: too big
+
+    buffer64Mbutton = new JRadioButton("64 MB");
+    if (buttonFont != null) buffer64Mbutton.setFont(buttonFont);
+    group12.add(buffer64Mbutton);
+//  panel11.add(buffer64Mbutton); // currently disabled: too big
+
+    buffer128Mbutton = new JRadioButton("128 MB");
+    if (buttonFont != null) buffer128Mbutton.setFont(buttonFont);
+    group12.add(buffer128Mbutton);
+//  panel11.add(buffer128Mbutton); // currently disabled: too big
+
+    buffer256Mbutton = new JRadioButton("256 MB");
+    if (buttonFont != null) buffer256Mbutton.setFont(buttonFont);
+    group12.add(buffer256Mbutton);
+//  panel11.add(buffer256Mbutton); // currently disabled: too big
+
+    buffer512Mbutton = new JRadioButton("512 MB");
+    if (buttonFont != null) buffer512Mbutton.setFont(buttonFont);
+    group12.add(buffer512Mbutton);
+//  panel11.add(buffer512Mbutton); // currently disabled: too big
+
+    panel01.add(panel11);
+    panel01.add(Box.createVerticalStrut(10)); // space between panels
+
+    /* Options for changing the total size of all temporary files.  Five
+    choices look best, and one should be pre-selected. */
+
+    JPanel panel21 = new JPanel();
+    panel21.setBorder(BorderFactory.createTitledBorder(null,
+      " Temporary File Size ", TitledBorder.DEFAULT_JUSTIFICATION,
+      TitledBorder.DEFAULT_POSITION, buttonFont));
+    panel21.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 0));
+//  panel21.setLayout(new GridLayout(0, 5)); // if more than 6 choices
+    panel21.setToolTipText("Total number of bytes to write, then read.");
+
+    ButtonGroup group22 = new ButtonGroup();
+
+    file1Mbutton = new JRadioButton("1 MB"); // megabyte (10**6)
+    if (buttonFont != null) file1Mbutton.setFont(buttonFont);
+    group22.add(file1Mbutton);
+//  panel21.add(file1Mbutton);    // currently disabled: too small
+
+    file10Mbutton = new JRadioButton("10 MB");
+    if (buttonFont != null) file10Mbutton.setFont(buttonFont);
+    group22.add(file10Mbutton);
+//  panel21.add(file10Mbutton);   // currently disabled: too small
+
+    file100Mbutton = new JRadioButton("100 MB");
+    if (buttonFont != null) file100Mbutton.setFont(buttonFont);
+    group22.add(file100Mbutton);
+//  panel21.add(file100Mbutton);  // currently disabled: too small
+
+    file1Gbutton = new JRadioButton("1 GB"); // gigabyte (10**9)
+    if (buttonFont != null) file1Gbutton.setFont(buttonFont);
+    group22.add(file1Gbutton);
+    panel21.add(file1Gbutton);
+
+    file10Gbutton = new JRadioButton("10 GB");
+    if (buttonFont != null) file10Gbutton.setFont(buttonFont);
+    group22.add(file10Gbutton);
+    panel21.add(file10Gbutton);
+
+    file100Gbutton = new JRadioButton("100 GB", true);
+    if (buttonFont != null) file100Gbutton.setFont(buttonFont);
+    group22.add(file100Gbutton);
+    panel21.add(file100Gbutton);
+
+    file1Tbutton = new JRadioButton("1 TB"); // terabyte (10**12)
+    if (buttonFont != null) file1Tbutton.setFont(buttonFont);
+    group22.add(file1Tbutton);
+    panel21.add(file1Tbutton);
+
+    file10Tbutton = new JRadioButton("10 TB");
+    if (buttonFont != null) file10Tbutton.setFont(buttonFont);
+    group22.add(file10Tbutton);
+    panel21.add(file10Tbutton);
+
+    file100Tbutton = new JRadioButton("100 TB");
+    if (buttonFont != null) file100Tbutton.setFont(buttonFont);
+    group22.add(file100Tbutton);
+//  panel21.add(file100Tbutton);  // currently disabled: too big
+
+    file1Pbutton = new JRadioButton("1 PB"); // petabyte (10**15)
+    if (buttonFont != null) file1Pbutton.setFont(buttonFont);
+    group22.add(file1Pbutton);
+//  panel21.add(file1Pbutton);    // currently disabled: too big
+
+    file10Pbutton = new JRadioButton("10 PB");
+    if (buttonFont != null) file10Pbutton.setFont(buttonFont);
+    group22.add(file10Pbutton);
+//  panel21.add(file10Pbutton);   // currently disabled: too big
+
+    file100Pbutton = new JRadioButton("100 PB");
+    if (buttonFont != null) file100Pbutton.setFont(buttonFont);
+    group22.add(file100Pbutton);
+//  panel21.add(file100Pbutton);  // currently disabled: too big
+
+    file1Ebutton = new JRadioButton("1 EB"); // exabyte (10**18)
+    if (buttonFont != null) file1Ebutton.setFont(buttonFont);
+    group22.add(file1Ebutton);
+//  panel21.add(file1Ebutton);    // currently disabled: too big
+
+    fileMaximumButton = new JRadioButton("maximum");
+    if (buttonFont != null) fileMaximumButton.setFont(buttonFont);
+    group22.add(fileMaximumButton);
+    panel21.add(fileMaximumButton);
+
+    panel01.add(panel21);
+    panel01.add(Box.createVerticalStrut(10)); // space between panels
+
+    /* Miscellaneous options.  Maybe these should be hidden from the user. */
+
+    JPanel panel31 = new JPanel();
+    panel31.setBorder(BorderFactory.createTitledBorder(null, " Options ",
+      TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION,
+      buttonFont));
+    panel31.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 0));
+
+    JPanel panel32 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    ignoreCheckbox = new JCheckBox("ignore first and last ", true);
+    if (buttonFont != null) ignoreCheckbox.setFont(buttonFont);
+    ignoreCheckbox.setToolTipText("Delay before calculating averages.");
+    panel32.add(ignoreCheckbox);
+    ignoreDialog = new JComboBox(IGNORE_CHOICES);
+    ignoreDialog.setEditable(false); // user must select one of our choices
+    if (buttonFont != null) ignoreDialog.setFont(buttonFont);
+    ignoreDialog.setSelectedItem(IGNORE_DEFAULT);
+    ignoreDialog.addActionListener(action); // do last so don't fire early
+    panel32.add(ignoreDialog);
+    if (mswinFlag) panel32.add(Box.createHorizontalStrut(4));
+                                  // adjust Sun/Oracle Java 1.4 to 7 on Windows
+    JLabel label33 = new JLabel(" seconds");
+    if (buttonFont != null) label33.setFont(buttonFont);
+    label33.setToolTipText("Delay before calculating averages.");
+    panel32.add(label33);
+    panel31.add(panel32);
+
+    JPanel panel34 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    JLabel label35 = new JLabel("engine ");
+    if (buttonFont != null) label35.setFont(buttonFont);
+    label35.setToolTipText("How data is read and written.");
+    panel34.add(label35);
+    engineDialog = new JComboBox<String>(ENGINE_CHOICES);
+    engineDialog.setEditable(false); // user must select one of our choices
+    if (buttonFont != null) engineDialog.setFont(buttonFont);
+    engineDialog.setSelectedIndex(engineType);
+    engineDialog.setToolTipText(
+      "\"direct\" skips the disk cache; \"channel\" for big buffers.");
+    panel34.add(engineDialog);
+    panel31.add(panel34);
+
+    JPanel panel36 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    JLabel label37 = new JLabel("sync ");
+    if (buttonFont != null) label37.setFont(buttonFont);
+    label37.setToolTipText("When written data is forced out to the drive.");
+    panel36.add(label37);
+    syncDialog = new JComboBox<String>(SYNC_CHOICES);
+    syncDialog.setEditable(false); // user must select one of our choices
+    if (buttonFont != null) syncDialog.setFont(buttonFont);
+    syncDialog.setSelectedIndex((syncBytes < 0) ? 1 : 0);
+    panel36.add(syncDialog);
+    panel31.add(panel36);
+
+    evictCheckbox = new JCheckBox("clear disk cache", evictFlag);
+    if (buttonFont != null) evictCheckbox.setFont(buttonFont);
+    evictCheckbox.setToolTipText("Drop cached files before reading.");
+    panel31.add(evictCheckbox);
+
+    verifyCheckbox = new JCheckBox("verify data", verifyFlag);
+    if (buttonFont != null) verifyCheckbox.setFont(buttonFont);
+    verifyCheckbox.setToolTipText("Check every block when reading.");
+    panel31.add(verifyCheckbox);
+
+    promptCheckbox = new JCheckBox("prompt before reading", false);
+    if (buttonFont != null) promptCheckbox.setFont(buttonFont);
+    promptCheckbox.setToolTipText("Select for removable media.");
+    panel31.add(promptCheckbox);
+
+    panel01.add(panel31);
+    panel01.add(Box.createVerticalStrut(10)); // space between panels
+
+    /* Options for the kind of test, and the block size for random tests. */
+
+    JPanel panel41 = new JPanel();
+    panel41.setBorder(BorderFactory.createTitledBorder(null, " Test Mode ",
+      TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION,
+      buttonFont));
+    panel41.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 0));
+
+    JPanel panel42 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    JLabel label43 = new JLabel("test ");
+    if (buttonFont != null) label43.setFont(buttonFont);
+    label43.setToolTipText("Whole files, or single blocks at random.");
+    panel42.add(label43);
+    modeDialog = new JComboBox<String>(MODE_CHOICES);
+    modeDialog.setEditable(false); // user must select one of our choices
+    if (buttonFont != null) modeDialog.setFont(buttonFont);
+    modeDialog.setSelectedIndex(modeType);
+    panel42.add(modeDialog);
+    panel41.add(panel42);
+
+    JPanel panel44 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    JLabel label45 = new JLabel("random block ");
+    if (buttonFont != null) label45.setFont(buttonFont);
+    label45.setToolTipText("Bytes in each request for random tests.");
+    panel44.add(label45);
+    blockDialog = new JComboBox<String>(BLOCK_CHOICES);
+    blockDialog.setEditable(false); // user must select one of our choices
+    if (buttonFont != null) blockDialog.setFont(buttonFont);
+    blockDialog.setSelectedItem(BLOCK_DEFAULT);
+    panel44.add(blockDialog);
+    panel41.add(panel44);
+
+    JPanel panel46 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    JLabel label47 = new JLabel("threads ");
+    if (buttonFont != null) label47.setFont(buttonFont);
+    label47.setToolTipText("Number of requests at the same time.");
+    panel46.add(label47);
+    threadDialog = new JComboBox<String>(THREAD_CHOICES);
+    threadDialog.setEditable(false); // user must select one of our choices
+    if (buttonFont != null) threadDialog.setFont(buttonFont);
+    threadDialog.setSelectedItem(String.valueOf(threadCount));
+    panel46.add(threadDialog);
+    panel41.add(panel46);
+
+    JPanel panel48 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+    JLabel label49 = new JLabel("data ");
+    if (buttonFont != null) label49.setFont(buttonFont);
+    label49.setToolTipText("Zeros, incompressible, or half compressible.");
+    panel48.add(label49);
+    patternDialog = new JComboBox<String>(PATTERN_CHOICES);
+    patternDialog.setEditable(false); // user must select one of our choices
+    if (buttonFont != null) patternDialog.setFont(buttonFont);
+    patternDialog.setSelectedIndex(patternType);
+    panel48.add(patternDialog);
+    panel41.add(panel48);
+
+    sweepCheckbox = new JCheckBox("sweep sizes", (sweepMax > 0));
+    if (buttonFont != null) sweepCheckbox.setFont(buttonFont);
+    sweepCheckbox.setToolTipText("Test from 4 KB up to the selected size.");
+    panel41.add(sweepCheckbox);
+
+    panel01.add(panel41);
+    panel01.add(Box.createVerticalStrut(20)); // space between panels
+
+    /* Create a horizontal panel for the progress bar and status text. */
+
+    progressBar = new JProgressBar(0, 100);
+    progressBar.setBorderPainted(false);
+    if (buttonFont != null) progressBar.setFont(buttonFont);
+    progressBar.setString(
+      " 999,999,999,999,999,999 bytes of 999,999,999,999,999,999 or 999.9% ");
+    progressBar.setStringPainted(true);
+
+    panel01.add(progressBar);
+    panel01.add(Box.createVerticalStrut(20)); // space between panels
+
+    /* Create a horizontal panel for the action buttons. */
+
+    JPanel panel51 = new JPanel();
+    panel51.setLayout(new BoxLayout(panel51, BoxLayout.X_AXIS));
+
+    driveFolderButton = new JButton("Drive Folder...");
+    driveFolderButton.addActionListener(action);
+    if (buttonFont != null) driveFolderButton.setFont(buttonFont);
+    driveFolderButton.setMnemonic(KeyEvent.VK_D);
+    driveFolderButton.setToolTipText("Select folder on disk drive.");
+    panel51.add(driveFolderButton);
+
+    panel51.add(Box.createHorizontalGlue()); // space between buttons
+
+    startButton = new JButton("Start");
+    startButton.addActionListener(action);
+    startButton.setEnabled(false);
+    if (buttonFont != null) startButton.setFont(buttonFont);
+    startButton.setMnemonic(KeyEvent.VK_S);
+    startButton.setToolTipText("Start writing then reading.");
+    panel51.add(startButton);
+
+    panel51.add(Box.createHorizontalGlue()); // space between buttons
+
+    cancelButton = new JButton("Cancel");
+    cancelButton.addActionListener(action);
+    cancelButton.setEnabled(false);
+    if (buttonFont != null) cancelButton.setFont(buttonFont);
+    cancelButton.setMnemonic(KeyEvent.VK_C);
+    cancelButton.setToolTipText("Stop reading or writing.");
+    panel51.add(cancelButton);
+
+    panel51.add(Box.createHorizontalGlue()); // space between buttons
+
+    exitButton = new JButton("Exit");
+    exitButton.addActionListener(action);
+    if (buttonFont != null) exitButton.setFont(buttonFont);
+    exitButton.setMnemonic(KeyEvent.VK_X);
+    exitButton.setToolTipText("Close this program.");
+    panel51.add(exitButton);
+
+    panel01.add(panel51);
+    panel01.add(Box.createVerticalStrut(25)); // space between panels
+
+    /* Create a horizontal panel for the read and write speeds.  Align the
+    numbers with BorderLayout.NORTH instead of BorderLayout.CENTER to match
+    what FlowLayout does inside the titled borders above when our application
+    window expands. */
+
+    JPanel panel61 = new JPanel(new GridLayout(1, 2, 20, 0));
+
+    JPanel panel62 = new JPanel();
+    panel62.setBorder(BorderFactory.createTitledBorder(null, " Read Speed ",
+      TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION,
+      buttonFont));
+    panel62.setLayout(new BorderLayout(0, 0));
+    panel62.setToolTipText("Current or final average read speed.");
+    readSpeedText = new JTextField("9,999.9 MB/s", 9); // minimum of 8 columns
+    readSpeedText.setBorder(BorderFactory.createEmptyBorder(5, 10, 10, 10));
+    readSpeedText.setEditable(false); // user can't change this text area
+    if (speedFont != null) readSpeedText.setFont(speedFont);
+    readSpeedText.setHorizontalAlignment(JTextField.CENTER);
+    readSpeedText.setOpaque(false);
+    panel62.add(readSpeedText, BorderLayout.NORTH);
+    panel61.add(panel62);
+
+    JPanel panel63 = new JPanel();
+    panel63.setBorder(BorderFactory.createTitledBorder(null, " Write Speed ",
+      TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION,
+      buttonFont));
+    panel63.setLayout(new BorderLayout(0, 0));
+    panel63.setToolTipText("Current or final average write speed.");
+    writeSpeedText = new JTextField("9,999.9 MB/s", 9); // minimum of 8 columns
+    writeSpeedText.setBorder(BorderFactory.createEmptyBorder(5, 10, 10, 10));
+    writeSpeedText.setEditable(false); // user can't change this text area
+    if (speedFont != null) writeSpeedText.setFont(speedFont);
+    writeSpeedText.setHorizontalAlignment(JTextField.CENTER);
+    writeSpeedText.setOpaque(false);
+    panel63.add(writeSpeedText, BorderLayout.NORTH);
+    panel61.add(panel63);
+
+    panel01.add(panel61);
+    panel01.add(Box.createVerticalStrut(10)); // space between panels
+
+    /* Create a scrolling text area for details and results that don't fit in
+    the read and write speed boxes. */
+
+    detailText = new JTextArea(5, 20);
+    detailText.setEditable(false); // user can't change this text area
+    if (buttonFont != null) detailText.setFont(buttonFont);
+    detailText.setLineWrap(false); // don't wrap text lines
+    detailText.setOpaque(false);
+    JScrollPane panel71 = new JScrollPane(detailText);
+    panel71.setBorder(BorderFactory.createTitledBorder(null, " Details ",
+      TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION,
+      buttonFont));
+    panel71.setToolTipText("Results and other details for this test.");
+    panel01.add(panel71);
+
+    /* Nothing in our layout needs to expand if the window size gets bigger, so
+    center everything horizontally and vertically.  The glue will stretch. */
+
+    Box panel91 = Box.createHorizontalBox(); // basic horizontal box
+    panel91.add(Box.createGlue()); // stretch to the left
+    panel91.add(panel01);
+    panel91.add(Box.createGlue()); // stretch to the right
+
+    Box panel92 = Box.createVerticalBox(); // basic vertical box
+    panel92.add(Box.createGlue()); // stretch to the top
+    panel92.add(panel91);
+    panel92.add(Box.createGlue()); // stretch to the bottom
+
+    /* Create the main window frame for this application.  We use a border
+    layout to add margins around the central area. */
+
+    mainFrame = new JFrame(PROGRAM_TITLE);
+    Container panel93 = mainFrame.getContentPane(); // where content meets frame
+    panel93.setLayout(new BorderLayout(0, 0));
+    panel93.add(Box.createVerticalStrut(25), BorderLayout.NORTH);
+    panel93.add(Box.createHorizontalStrut(20), BorderLayout.WEST);
+    panel93.add(panel92, BorderLayout.CENTER); // initial panel
+    panel93.add(Box.createHorizontalStrut(20), BorderLayout.EAST);
+    panel93.add(Box.createVerticalStrut(20), BorderLayout.SOUTH);
+
+    mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    mainFrame.setLocation(windowLeft, windowTop); // normal top-left corner
+    if ((windowHeight < MIN_FRAME) || (windowWidth < MIN_FRAME))
+      mainFrame.pack();           // do component layout with minimum size
+    else                          // the user has given us a window size
+      mainFrame.setSize(windowWidth, windowHeight); // size of normal window
+    if (maximizeFlag) mainFrame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+    mainFrame.validate();         // recheck application window layout
+    driveFolderButton.requestFocusInWindow(); // give keyboard focus to button
+    mainFrame.setVisible(true);   // and then show application window
+
+    /* Let the graphical interface run the application now. */
+
+    progressBar.setString(NO_DRIVE_TEXT); // clear placeholder text
+    readSpeedText.setText(NO_SPEED_TEXT);
+    writeSpeedText.setText(NO_SPEED_TEXT);
+
+  } // end of main() method
+
+// ------------------------------------------------------------------------- //
+
+/*
+  allocateBuffer() method
+
+  Allocate a data buffer for the I/O engine chosen by the user.  Byte streams,
+  random access files, and the "heap" engine use a Java array.  Other engines
+  use native memory.  Direct I/O needs a buffer that starts on a block
+  boundary, which we make by allocating extra bytes and then taking an aligned
+  slice, which must be trimmed to the correct size.  Throws OutOfMemoryError
+  if the buffer is too big.
+*/
+  static ByteBuffer allocateBuffer(int size)
+  {
+    if ((engineType == ENGINE_STREAM) || (engineType == ENGINE_HEAP)
+      || (engineType == ENGINE_RAF)) // if engine uses Java arrays
+    {
+      return(ByteBuffer.allocate(size)); // Java array for byte streams
+    }
+    return(ByteBuffer.allocateDirect(size + bufferAlign).alignedSlice(
+      bufferAlign).limit(size).slice()); // aligned, exactly <size> bytes
+  }
+
+
+/*
+  allocateFiles() method
+
+  Preallocate the first file for each worker thread at its final size, before
+  the write pass starts its clock.  This is done by one thread, in the same
+  order as the workers would create the files, and the total time is reported
+  separately from the write speed.  Files that can't be allocated are deleted
+  and will be created by the write pass as usual.
+*/
+  static void allocateFiles()
+  {
+    long bytes;                   // total bytes allocated, all files
+    int fileNumber;               // current file number
+    File fp;                      // File object for one temporary file
+    long nanos;                   // nanoseconds spent allocating
+    long position;                // file position for writing zeros
+    RandomAccessFile raf;         // file being allocated
+    long share;                   // bytes for each worker, as in writeWorker()
+    ByteBuffer zeros;             // buffer of zeros for "fill", or null
+
+    if (consoleFlag == false)     // only if we have a graphical interface
+      progressBar.setString("Allocating files...");
+    share = maxDataBytes / threadCount; // same share as each worker writes
+    if ((share % bufferSize) != 0) // round up to a whole number of buffers
+      share += bufferSize - (share % bufferSize);
+    zeros = (preallocType == PREALLOC_FILL)
+      ? ByteBuffer.allocateDirect(PREALLOC_BUFFER) : null;
+
+    bytes = 0;                    // no bytes allocated yet
+    nanos = System.nanoTime();    // starting clock for all files
+    for (fileNumber = 1; (cancelFlag == false) && (fileNumber <= threadCount)
+      && (fileNumber <= MAX_FILE_COUNT); fileNumber ++)
+    {
+      fp = createFile(fileNumber); // from name
+      try
+      {
+        raf = new RandomAccessFile(fp, "rw"); // create new or replace old
+        try
+        {
+          raf.setLength(0);       // discard old data from an earlier cycle
+          raf.setLength(share);   // may only be "sparse" on some systems
+          for (position = 0; (cancelFlag == false) && (zeros != null)
+            && (position < share); position += zeros.position())
+          {
+            zeros.clear();        // write zeros, up to end of file
+            zeros.limit((int) Math.min(zeros.capacity(), (share - position)));
+            raf.getChannel().write(zeros, position); // may be partial
+          }
+          if (zeros != null)      // only "fill" forces data to drive
+            raf.getFD().sync();
+        }
+        finally { raf.close(); }  // close file, even after an error
+        fileAllocated[fileNumber] = true; // write pass won't truncate
+        bytes += share;           // add to total bytes allocated
+      }
+      catch (IOException ioe)     // file system or drive can't do this
+      {
+        fp.delete();              // leave file for write pass to create
+        putError("Can't preallocate file " + fp.getName() + ": "
+          + ioe.getMessage());    // such as disk full or file too big
+        break;                    // exit early from <for> loop
+      }
+    }
+    nanos = System.nanoTime() - nanos; // elapsed time, all files
+    putResult("alloc.type", PREALLOC_CHOICES[preallocType]);
+    putResult("alloc.bytes", String.valueOf(bytes));
+    putResult("alloc.ms", formatResult(nanos / 1e6));
+    putResult("alloc.speed", formatResult((nanos > 0)
+      ? (bytes * 1e9 / nanos) : -1.0)); // bytes per second, like passes
+  }
+
+
+/*
+  beginPass() method
+
+  Start a read or write pass: clear the byte count and clock data, and start
+  the sampler thread and the timer that updates the status message.  The pass
+  ends with stopPass() and endPass().
+*/
+  static void beginPass(int state)
+  {
+    bytesAllFiles.reset();        // no bytes read or written yet
+    for (int k = 0; k < driveBytes.length; k ++)
+    {
+      driveBytes[k].reset();      // same for each drive folder
+      driveClock[k] = 0;          // no workers have finished yet
+    }
+    for (int k = 0; k < workerLatency.length; k ++)
+      workerLatency[k].reset();   // no request times yet
+    syncCount.reset();            // no data forced to drive yet
+    syncNanos.reset();
+    verifyBlocks.reset();         // no data checked yet
+    verifyErrors.set(0);
+    verifyNanos.reset();
+    ignoreDelayNanos = 1000000000L * ignoreSeconds; // start/stop delay
+    ignoreStartBytes = ignoreStopBytes = -1; // no data yet after delays
+    ignoreStartClock = ignoreStopClock = startTime = System.nanoTime();
+                                  // starting clock time in nanoseconds
+    userBytesPrev = 0;            // no bytes reported to user yet
+    userBytesRate = -1.0;         // no current or previous bytes per second
+    userWritePrev = 0;            // same for writing in a mixed test
+    userWriteRate = -1.0;
+    writeBytes.reset();           // no bytes written yet, mixed test
+    paceLag.reset();              // no requests behind schedule yet
+
+    seriesCount = 0;              // no intervals for this pass yet
+    eraseState = state;           // we are now reading or writing data
+    queueClear();                 // clear queue of pending clock data
+    updateClockData(0, startTime); // every pass starts from zero bytes
+    updateProgressBar();          // force the progress bar to update
+    startStatusTimer();           // start updating the status message
+  }
+
+
+/*
+  calculateSpeed() method
+
+  Calculate the final average speed for a read/write pass in bytes per second,
+  from the data collected after the start delay and before the stop delay.
+  Return a negative number if there was not enough time to calculate a speed.
+*/
+  static double calculateSpeed()
+  {
+    long finalBytes = ignoreStopBytes - ignoreStartBytes; // number of bytes
+    long finalClock = ignoreStopClock - ignoreStartClock; // elapsed clock time
+    if ((finalBytes > 0) && (finalClock > 0)) // don't divide by zero
+      return((double) finalBytes * 1e9 / (double) finalClock);
+    return(-1.0);                 // can't report accurate speed
+  }
+
+
+/*
+  checkBlocks() method
+
+  Check each block that was read from a file: the header must have our run
+  number, file number, and position, and the CRC32C checksum must match the
+  rest of the block.  The first few bad blocks are reported with the file name
+  and position; after that, they are only counted.  Checksums are calculated
+  by the JVM with special instructions on most processors.
+*/
+  static void checkBlocks(ByteBuffer buffer, int length, int fileNumber,
+    long position, java.util.zip.CRC32C crc)
+  {
+    long badNumber, badPosition, badSeed; // header fields for bad block
+    int i;                        // index of block in buffer
+    String problem;               // description of bad block, or null
+    long started = System.nanoTime(); // checking is timed separately
+
+    for (i = 0; (i + VERIFY_BLOCK) <= length; i += VERIFY_BLOCK)
+    {
+      problem = null;             // assume that this block is good
+      badSeed = buffer.getLong(i);
+      badNumber = buffer.getLong(i + 8);
+      badPosition = buffer.getLong(i + 16);
+      if ((badSeed != verifySeed) || (badNumber != fileNumber)
+        || (badPosition != (position + i))) // header doesn't match
+      {
+        problem = (badSeed != verifySeed) ? "old or unknown data"
+          : ("block from file " + createFilename((int) badNumber)
+          + " position " + badPosition); // wrong block was returned
+      }
+      else                        // header is good, now check the data
+      {
+        crc.reset();              // checksum of everything after header
+        buffer.limit(i + VERIFY_BLOCK);
+        buffer.position(i + VERIFY_HEADER);
+        crc.update(buffer);
+        buffer.clear();           // restore full buffer
+        if (((int) crc.getValue()) != buffer.getInt(i + VERIFY_CRC))
+          problem = "checksum does not match";
+      }
+      if ((problem != null)       // report only the first few bad blocks
+        && (verifyErrors.incrementAndGet() <= VERIFY_REPORT))
+      {
+        putResult("verify.error", (createFilename(fileNumber) + " position "
+          + (position + i) + ": " + problem));
+      }
+    }
+    verifyBlocks.add(i / VERIFY_BLOCK); // number of blocks checked
+    verifyNanos.add(System.nanoTime() - started);
+  }
+
+
+/*
+  checkDriveFolder() method
+
+  If a writeable folder has been selected, then enable the "Start" button.
+  This method is overly protective because it is possible to select a good
+  folder, then delete the folder, before clicking the "Start" button.
+*/
+  static void checkDriveFolder()
+  {
+    File folder;                  // one of the selected folders
+    String name;                  // folder name for messages, or empty
+
+    if (driveSelection == null)   // if there is no drive selection
+    {
+      rejectDriveFolder(NO_DRIVE_TEXT); // repeat generic message
+      return;
+    }
+    for (int i = 0; i < driveList.length; i ++) // check each folder
+    {
+      folder = driveList[i];
+      name = (driveList.length > 1) ? (" " + folder.getPath()) : "";
+      if (folder.exists() == false) // if it doesn't exist
+      {
+        rejectDriveFolder("Selected drive folder" + name
+          + " does not exist.");
+        return;
+      }
+      else if (folder.isDirectory() == false) // if it's not a folder
+      {
+        rejectDriveFolder("Selected object" + name
+          + " is not a directory or folder.");
+        return;
+      }
+      else if (folder.canWrite() == false) // if we can't write to it
+      {
+        rejectDriveFolder("Can't write to selected directory or folder"
+          + name + ".");
+        return;
+      }
+    }
+
+    /* All folders should be good for writing.  Our caller will have
+    additional code. */
+
+  } // end of checkDriveFolder() method
+
+
+/*
+  compareResults() method
+
+  Compare the speeds from this test with those from the baseline test, and
+  report each one with the baseline speed, new speed, and percent change.  A
+  speed that is lower by more than the user's tolerance is a regression.
+*/
+  static void compareResults(String[] baseline, String[] record)
+  {
+    java.util.Map<String, Double> after, before; // speeds by name
+    double change;                // percent change in speed
+    int count;                    // number of regressions
+    boolean slower;               // true if this speed is a regression
+    double speed, old;            // new and baseline speeds
+
+    putResult("compare.baseline", baseline[0].substring(
+      baseline[0].indexOf('=') + 1)); // date and time of baseline
+    before = recordSpeeds(baseline);
+    after = recordSpeeds(record);
+    count = 0;                    // no regressions found yet
+    for (String name : after.keySet()) // same order as reported
+    {
+      if ((before.containsKey(name) == false) || (before.get(name) <= 0.0))
+        continue;                 // nothing to compare
+      old = before.get(name);
+      speed = after.get(name);
+      change = 100.0 * (speed - old) / old;
+      slower = change < -comparePercent; // more than tolerance
+      putResult(("compare." + name), (Math.round(old) + " "
+        + Math.round(speed) + " " + formatPointOne.format(change) + "%"
+        + (slower ? " regression" : "")));
+      if (slower) count ++;
+    }
+    putResult("compare.regressions", String.valueOf(count));
+    if (count > 0)                // also an error for console application
+      putError(count + " speed(s) more than " + comparePercent
+        + "% lower than the baseline from " + baseline[0].substring(
+        baseline[0].indexOf('=') + 1) + ".");
+  }
+
+
+/*
+  createExecutor() method
+
+  Return a way of running tasks for the "files" test: one virtual thread for
+  each task if Java has them (Java 21 and later) and the user hasn't turned
+  them off, otherwise a pool with the number of threads chosen by the user.
+  Virtual threads are found by reflection, so that we still compile and run on
+  older versions of Java.
+*/
+  static ExecutorService createExecutor()
+  {
+    if (virtualFlag)              // only if the user wants virtual threads
+    {
+      try
+      {
+        ExecutorService result = (ExecutorService) Executors.class.getMethod(
+          "newVirtualThreadPerTaskExecutor").invoke(null);
+        putResult("files.threads", "virtual");
+        return(result);
+      }
+      catch (Exception e) { /* older Java: no virtual threads */ }
+    }
+    putResult("files.threads", String.valueOf(threadCount));
+    return(Executors.newFixedThreadPool(threadCount));
+  }
+
+
+/*
+  createFile() method
+
+  Return a File object for a temporary file number.  Each worker thread has
+  its own files, and each drive folder has its own worker threads, so the file
+  goes in the folder for the worker that owns it.
+*/
+  static File createFile(int number)
+  {
+    return(new File(driveList[driveIndex((number - 1) % threadCount)],
+      createFilename(number)));
+  }
+
+
+/*
+  createFilename() method
+
+  Common routine to create a temporary file name given a file number, so that
+  all methods create the same file names in the old MS-DOS 8.3 format.
+*/
+  static String createFilename(int number)
+  {
+    String digits = String.valueOf(number); // convert integer to characters
+    return("ERASE000".substring(0, (8 - digits.length())) + digits + ".DAT");
+  }
+
+
+/*
+  deleteFiles() method
+
+  Delete our temporary files, if the user allows that.  We ignore most errors
+  here.
+*/
+  static void deleteFiles()
+  {
+    File fp;                      // File object to delete
+    int i;                        // index variable
+
+    if (deleteFlag == false)      // does the user want to keep the files?
+      return;
+    for (i = 1; i <= highestFileCreated; i ++) // for each file we created
+    {
+      fp = createFile(i);         // from file name
+      fp.delete();                // try to delete this file, ignore errors
+    }
+    highestFileCreated = 0;       // no more files to delete
+  }
+
+
+/*
+  deleteManifest() method
+
+  Delete the manifest for files kept by an earlier test, and the files that it
+  lists, because we are about to write new files.  The earlier test may have
+  had more threads or other folders, so the file names come from the manifest,
+  not the current options.  We ignore most errors here.
+*/
+  static void deleteManifest()
+  {
+    int count;                    // number of kept files deleted
+    java.util.ArrayList<Integer> files; // file numbers when written
+    java.util.ArrayList<String> folders; // drive folders when written
+    File fp;                      // File object for manifest, or one file
+    int i, k;                     // index variables
+    String line;                  // one line from the manifest
+    String name, value;           // one "name=value" pair from the manifest
+    BufferedReader reader;        // for reading manifest file
+    int threads;                  // number of threads when written
+
+    fp = new File(driveList[0], MANIFEST_NAME);
+    if (fp.isFile() == false)     // nothing to do if there is no manifest
+      return;
+    files = new java.util.ArrayList<Integer>();
+    folders = new java.util.ArrayList<String>();
+    threads = -1;
+    try
+    {
+      reader = new BufferedReader(new FileReader(fp));
+      try
+      {
+        while ((line = reader.readLine()) != null)
+        {
+          if ((k = line.indexOf('=')) < 0) // ignore comments, blank lines
+            continue;
+          name = line.substring(0, k);
+          value = line.substring(k + 1);
+          if (name.equals("threads"))
+            threads = Integer.parseInt(value);
+          else if (name.equals("folder"))
+            folders.add(value);
+          else if (name.startsWith("file."))
+            files.add(Integer.valueOf(name.substring(5)));
+        }
+      }
+      finally { reader.close(); } // close file, even after an error
+    }
+    catch (IOException ioe) { /* delete what we found */ }
+    catch (NumberFormatException nfe) { /* manifest was changed */ }
+
+    count = 0;                    // no kept files deleted yet
+    if ((threads > 0) && (folders.isEmpty() == false))
+    {
+      for (Integer number : files) // same folders as driveIndex() used
+      {
+        i = number.intValue();
+        if ((i < 1) || (i > MAX_FILE_COUNT)) // not one of our file names
+          continue;
+        fp = new File(folders.get(((i - 1) % threads) % folders.size()),
+          createFilename(i));
+        if (fp.delete())          // ignore files that are already gone
+          count ++;
+      }
+    }
+    new File(driveList[0], MANIFEST_NAME).delete(); // no longer correct
+    if (count > 0)                // only mention this if it happened
+      putResult("keep.deleted", String.valueOf(count));
+  }
+
+
+/*
+  driveIndex() method
+
+  Return the index in <driveList> of the drive folder used by a worker thread.
+  Mixed tests have readers numbered after the writers, with the same folders.
+*/
+  static int driveIndex(int worker)
+  {
+    return((worker % threadCount) % driveList.length);
+  }
+
+
+/*
+  endPass() method
+
+  Calculate and report the final average speed for a read or write pass that
+  was started with beginPass(), after the caller has stopped the pass with
+  stopPass().  The speed goes in the read or write text box, depending upon
+  the state of the pass, and is reported with the given name as a prefix,
+  along with the latency percentiles for individual requests.
+  Return the speed in bytes per second, or a negative number.
+*/
+  static double endPass(String name)
+  {
+    double speed = calculateSpeed(); // bytes per second, or negative
+
+    if (consoleFlag == false)     // only if we have a graphical interface
+    {
+      String text = (speed < 0.0) ? TOO_FAST_TEXT : formatSpeed(speed);
+                                  // can't always report accurate speed
+      if (passState == ERASE_READ) // was this a read pass?
+        readSpeedText.setText(text);
+      else                        // must have been a write pass
+        writeSpeedText.setText(text);
+    }
+    if (passState == ERASE_READ)  // remember speed for a sweep
+      lastReadSpeed = speed;
+    else
+      lastWriteSpeed = speed;
+    putResult(name + ".bytes", String.valueOf(bytesAllFiles.sum()));
+    putResult(name + ".speed", formatResult(speed));
+    for (int k = 0; (driveBytes.length > 1) && (k < driveBytes.length); k ++)
+    {
+      putResult(name + ".folder" + (k + 1) + ".bytes",
+        String.valueOf(driveBytes[k].sum()));
+      putResult(name + ".folder" + (k + 1) + ".speed", formatResult(
+        (driveClock[k] > startTime) ? (driveBytes[k].sum() * 1e9
+        / (driveClock[k] - startTime)) : -1.0)); // until folder's last worker
+                                  // ... ended, and no seconds ignored
+    }
+    if ((rateTarget > 0.0) && (passState == ERASE_WRITE) // writes paced
+      && (paceBytes > 0))
+    {
+      double target = (rateIopsFlag ? (rateTarget * paceBytes) : rateTarget)
+        * driveList.length;       // rate is for each folder, speed for all
+      putResult(name + ".rate.target", formatResult(target));
+      putResult(name + ".rate.lag.ms", formatResult(paceLag.get() / 1e6));
+      putResult(name + ".rate.kept", (((speed >= 0.0) && ((speed * 100)
+        >= (target * RATE_KEPT))) ? "yes" : "no"));
+    }
+
+    /* Combine the request times from all workers, which are only changed by
+    their own threads during a pass, and report the percentiles. */
+
+    DriveSpeed1Latency latency = new DriveSpeed1Latency();
+    for (int k = 0; k < workerLatency.length; k ++)
+      latency.merge(workerLatency[k]);
+    if (latency.total > 0)        // only if there were any requests
+    {
+      putResult(name + ".latency.min.ns", String.valueOf(latency.minimum));
+      putResult(name + ".latency.p50.ns", String.valueOf(
+        latency.percentile(0.5)));
+      putResult(name + ".latency.p90.ns", String.valueOf(
+        latency.percentile(0.9)));
+      putResult(name + ".latency.p99.ns", String.valueOf(
+        latency.percentile(0.99)));
+      putResult(name + ".latency.p999.ns", String.valueOf(
+        latency.percentile(0.999)));
+      putResult(name + ".latency.max.ns", String.valueOf(latency.maximum));
+    }
+
+    reportSeries(name);           // save intervals, look for a cliff
+
+    /* Report how often written data was forced out to the drive, and how
+    much of the worker threads' time went to syncing. */
+
+    long syncs = syncCount.sum(); // number of times data was forced
+    if (syncs > 0)                // only if this pass did any syncs
+    {
+      double nanos = syncNanos.sum(); // time spent syncing, all threads
+      putResult(name + ".sync.count", String.valueOf(syncs));
+      putResult(name + ".sync.ms", formatResult(nanos / 1e6));
+                                  // total for all threads
+      putResult(name + ".sync.percent", formatResult((stopTime > startTime)
+        ? (nanos * 100.0 / ((double) (stopTime - startTime) * threadCount))
+        : -1.0));
+                                  // percent of worker time spent syncing
+    }
+
+    /* Report how many blocks were checked, how many were bad, and how much
+    of the worker threads' time went to checking. */
+
+    long blocks = verifyBlocks.sum(); // number of blocks checked
+    if (blocks > 0)               // only if this pass checked any data
+    {
+      double nanos = verifyNanos.sum(); // time spent checking, all threads
+      putResult(name + ".verify.blocks", String.valueOf(blocks));
+      putResult(name + ".verify.errors", String.valueOf(verifyErrors.get()));
+      putResult(name + ".verify.speed", formatResult((nanos > 0.0)
+        ? ((double) blocks * VERIFY_BLOCK * 1e9 / nanos) : -1.0));
+                                  // bytes per second for one thread
+      putResult(name + ".verify.percent", formatResult((stopTime > startTime)
+        ? (nanos * 100.0 / ((double) (stopTime - startTime) * threadCount))
+        : -1.0));
+                                  // percent of worker time spent checking
+      if (verifyErrors.get() > 0) // tell user that the drive is bad
+        putError("Data verification found " + verifyErrors.get()
+          + " bad block(s) during " + name + ".");
+    }
+    return(speed);
+  }
+
+
+/*
+  evictCache() method
+
+  Java has no standard way of removing files from the disk cache.  First force
+  all data out to the drive, because the system won't drop "dirty" pages.  Then
+  use the Linux "dd" command to call posix_fadvise(POSIX_FADV_DONTNEED) for
+  each file, which doesn't need special privileges.  If that fails, and only if
+  the user asked with -evict=all, try to drop all clean pages in the system,
+  which only works for the root user and slows down everything else.  Finally,
+  ask the "fincore" command how much of our files is still in the disk cache.
+*/
+  static void evictCache(int totalFiles)
+  {
+    FileChannel channel;          // file channel for forcing data to drive
+    File fp;                      // File object for one temporary file
+    int i;                        // index variable
+    String method;                // how disk cache was cleared, or null
+    long resident;                // bytes still in disk cache, or -1
+    String text;                  // output from a system command
+
+    for (i = 1; i <= totalFiles; i ++) // for each file we created
+    {
+      if (fileSizes[i] < 0) continue; // skip numbers that weren't created
+      fp = createFile(i);         // from file name
+      try
+      {
+        channel = FileChannel.open(fp.toPath(), StandardOpenOption.WRITE);
+        channel.force(true);      // flush data and metadata to the drive
+        channel.close();
+      }
+      catch (IOException ioe) { /* ignore errors */ }
+    }
+
+    method = "fadvise";           // assume that "dd" works for all files
+    for (i = 1; i <= totalFiles; i ++) // for each file we created
+    {
+      if (fileSizes[i] < 0) continue; // skip numbers that weren't created
+      fp = createFile(i);         // from file name
+      if (runCommand(new String[] {"dd", ("if=" + fp.getPath()),
+        "iflag=nocache", "count=0"}) == null) // drop cache for whole file
+      {
+        method = null;            // this system doesn't support "dd" option
+        break;
+      }
+    }
+
+    if ((method == null) && (evictGlobal == false)) // don't touch others
+      method = "none";
+    else if (method == null)      // try the next method, root user only
+    {
+      try
+      {
+        FileOutputStream out = new FileOutputStream(
+          "/proc/sys/vm/drop_caches"); // Linux only
+        out.write("1\n".getBytes()); // free page cache, not directories
+        out.close();
+        method = "drop_caches";   // this worked
+      }
+      catch (IOException ioe) { method = "none"; } // nothing worked
+    }
+
+    resident = 0;                 // add up bytes still in disk cache
+    for (i = 1; i <= totalFiles; i ++) // for each file we created
+    {
+      if (fileSizes[i] < 0) continue; // skip numbers that weren't created
+      fp = createFile(i);         // from file name
+      text = runCommand(new String[] {"fincore", "--bytes", "--noheadings",
+        "--raw", "--output", "RES", fp.getPath()});
+      try { resident += Long.parseLong(text.trim()); }
+      catch (RuntimeException re) // null output or not a number
+      {
+        resident = -1;            // we don't know how much is in cache
+        break;
+      }
+    }
+
+    putResult("evict.method", method); // tell user what happened
+    if (resident >= 0)            // only if we know bytes still in cache
+      putResult("evict.cached.bytes", String.valueOf(resident));
+  }
+
+
+/*
+  filesWorker() method
+
+  One task for runFiles(): do one step of the "files" test on all small files
+  in one folder.  Folder numbers start from zero, and file number <n> goes in
+  folder (n % fanoutCount).  Only the first error is reported, and then each
+  task stops at its next file.
+*/
+  static void filesWorker(int folder, int task)
+  {
+    byte[] buffer;                // data read from one small file
+    File directory;               // folder for our small files
+    File fp;                      // File object for one small file
+    int i;                        // number of bytes read
+    FileInputStream inp;          // byte stream for reading one file
+    int number;                   // current small file number
+    FileOutputStream out;         // byte stream for writing one file
+    String problem;               // description of error, or null
+    long size;                    // size of one file from file system
+
+    buffer = new byte[Math.max(1, filesBytes)]; // one more byte finds errors
+    directory = new File(new File(driveList[folder % driveList.length],
+      FILES_FOLDER), ("D" + folder)); // one folder of many, drives in turn
+    if ((task == WORKER_FILES_CREATE) && (directory.mkdir() == false)
+      && (directory.isDirectory() == false))
+    {
+      if (filesErrors.incrementAndGet() == 1) // only tell user once
+        putError("Can't create folder " + directory.getPath());
+      return;
+    }
+    for (number = folder; (cancelFlag == false) && (number < filesCount)
+      && (filesErrors.get() == 0); number += fanoutCount)
+    {
+      fp = new File(directory, ("F" + number + ".DAT"));
+      problem = null;             // assume that this file is good
+      try
+      {
+        if (task == WORKER_FILES_CREATE) // create and write small file
+        {
+          out = new FileOutputStream(fp);
+          try
+          {
+            out.write(fileData);  // empty array is allowed
+            if (syncBytes != 0)   // any sync option forces each file
+              out.getFD().sync();
+          }
+          finally { out.close(); } // close file, even after an error
+        }
+        else if (task == WORKER_FILES_STAT) // get file size, not data
+        {
+          size = Files.readAttributes(fp.toPath(),
+            java.nio.file.attribute.BasicFileAttributes.class).size();
+          if (size != filesBytes)
+            problem = "size is " + size + " bytes";
+        }
+        else if (task == WORKER_FILES_READ) // read entire small file
+        {
+          inp = new FileInputStream(fp);
+          try
+          {
+            size = 0;             // no bytes read yet
+            while ((i = inp.read(buffer)) > 0)
+              size += i;          // total bytes in file
+          }
+          finally { inp.close(); } // close file, even after an error
+          if (size != filesBytes)
+            problem = "read " + size + " bytes";
+        }
+        else if (fp.delete() == false) // delete small file
+          problem = "can't delete";
+      }
+      catch (IOException ioe)     // all errors are bad news here
+      {
+        problem = ioe.getMessage();
+      }
+      if (problem != null)        // tell user about first error only
+      {
+        if (filesErrors.incrementAndGet() == 1)
+          putError("Can't " + FILES_NAMES[task - WORKER_FILES_CREATE]
+            + " file " + fp.getPath() + ": " + problem);
+        return;
+      }
+      filesDone.increment();      // add to total files done this step
+    }
+    if (task == WORKER_FILES_DELETE) // folder should now be empty
+      directory.delete();         // ignore errors
+  }
+
+
+/*
+  fillPattern() method
+
+  Fill a data buffer with the data pattern chosen by the user.  This is done
+  before any timing starts.  The "compress" pattern has random bytes at the
+  start of each chunk and zeros for the rest of the chunk.  When verifying,
+  also put a checksum in the header of each block.
+*/
+  static void fillPattern(ByteBuffer buffer, java.util.Random random)
+  {
+    int chunk;                    // bytes remaining in current chunk
+    int i;                        // index variable
+    int size = buffer.capacity(); // number of bytes to fill
+
+    if (patternType == PATTERN_ZEROS) // all binary zeros
+    {
+      for (i = 0; i < size; i ++)
+        buffer.put(i, (byte) 0x00);
+    }
+    else                          // random bytes, maybe with some zeros
+    {
+      int randomBytes = (patternType == PATTERN_RANDOM) ? COMPRESS_CHUNK
+        : ((COMPRESS_CHUNK * (100 - compressPercent)) / 100);
+                                  // random bytes at start of each chunk
+      for (i = 0; i < size; i += COMPRESS_CHUNK)
+      {
+        for (chunk = 0; (chunk < COMPRESS_CHUNK) && ((i + chunk) < size);
+          chunk ++)
+        {
+          if (((chunk % 8) == 0) && ((chunk + 8) <= randomBytes)
+            && ((i + chunk + 8) <= size)) // eight random bytes at a time
+          {
+            buffer.putLong((i + chunk), random.nextLong());
+            chunk += 7;           // skip bytes we just filled
+          }
+          else                    // one byte at a time
+            buffer.put((i + chunk), ((chunk < randomBytes)
+              ? (byte) random.nextInt() : (byte) 0x00));
+        }
+      }
+    }
+
+    /* When verifying, the checksum for the data in each block never changes,
+    so it is calculated here.  Only the header is changed before writing. */
+
+    if (verifyFlag)               // only if we check data when reading
+    {
+      java.util.zip.CRC32C crc = new java.util.zip.CRC32C();
+      for (i = 0; (i + VERIFY_BLOCK) <= size; i += VERIFY_BLOCK)
+      {
+        crc.reset();              // checksum of everything after header
+        buffer.limit(i + VERIFY_BLOCK);
+        buffer.position(i + VERIFY_HEADER);
+        crc.update(buffer);
+        buffer.clear();           // restore full buffer
+        buffer.putInt((i + VERIFY_CRC), (int) crc.getValue());
+      }
+    }
+  }
+
+
+/*
+  findBaseline() method
+
+  Find the baseline for this test in the results file: the oldest test with
+  the same computer, folders, and options.  Return its results, or null if
+  there is no results file or no such test.  Errors are reported here.
+*/
+  static String[] findBaseline(String[] record)
+  {
+    String key;                   // options that must be the same
+    String line;                  // one test from the results file
+    BufferedReader reader;        // for reading results file
+
+    if (new File(resultsFilename).exists() == false)
+      return(null);               // first test, nothing to compare
+    key = recordKey(record);
+    try
+    {
+      reader = new BufferedReader(new FileReader(resultsFilename));
+      try
+      {
+        while ((line = reader.readLine()) != null)
+          if (recordKey(line.split("\t")).equals(key))
+            return(line.split("\t")); // oldest matching test
+      }
+      finally { reader.close(); } // close file, even after an error
+    }
+    catch (IOException ioe)       // report error, but continue saving
+    {
+      putError("Can't read results file " + resultsFilename + ": "
+        + ioe.getMessage());
+    }
+    return(null);                 // no matching test
+  }
+
+
+/*
+  findBlockSize() method
+
+  Find the block size of the file system holding our drive folder, which is
+  the alignment required for direct I/O.  With several folders, use the
+  largest.  Return a common default if the system won't tell us.
+*/
+  static int findBlockSize()
+  {
+    int result;                   // largest block size, all drive folders
+    long size;                    // block size reported by file system
+
+    result = 0;                   // no block sizes yet
+    for (int i = 0; i < driveList.length; i ++) // same buffers for all
+    {
+      try { size = Files.getFileStore(driveList[i].toPath()).getBlockSize(); }
+      catch (IOException ioe) { size = -1; } // ignore errors, use default
+      catch (UnsupportedOperationException uoe) { size = -1; }
+      if ((size < 0x200) || (size > MAX_BUFFER_SIZE) // unreasonable size?
+        || ((size & (size - 1)) != 0)) // or not a power of two?
+      {
+        size = DIRECT_ALIGN;      // use a common default
+      }
+      result = Math.max(result, (int) size);
+    }
+    return(result);
+  }
+
+
+/*
+  findKnee() method
+
+  Given sizes and speeds from a sweep, return the smallest size (as a string)
+  with a speed that is at least SWEEP_KNEE percent of the best speed.  Larger
+  sizes than that don't make much difference.  Return "NaN" if there are no
+  good speeds.
+*/
+  static String findKnee(int[] sizes, double[] speeds)
+  {
+    double best = -1.0;           // best speed found so far
+    int i;                        // index variable
+
+    for (i = 0; i < speeds.length; i ++)
+      best = Math.max(best, speeds[i]);
+    for (i = 0; (best > 0.0) && (i < speeds.length); i ++)
+      if ((speeds[i] * 100.0) >= (best * SWEEP_KNEE))
+        return(String.valueOf(sizes[i]));
+    return("NaN");                // no good speeds
+  }
+
+
+/*
+  formatMegabytes() method
+
+  Format a speed in bytes per second as megabytes per second with one decimal
+  digit and no digit grouping, for tables that scripts can read.  A negative
+  speed is reported as "NaN".
+*/
+  static String formatMegabytes(double speed)
+  {
+    if (speed < 0.0)              // was there enough time for a good speed?
+      return("NaN");              // no, this is "not a number"
+    return(String.valueOf(Math.round(speed * 10.0 / 1048576.0) / 10.0));
+  }
+
+
+/*
+  formatResult() method
+
+  Format a speed in bytes per second as a plain number for a script to read,
+  with no digit grouping and no units.  A negative speed means that we didn't
+  have enough time to calculate the speed, which is reported as "NaN".
+*/
+  static String formatResult(double speed)
+  {
+    if (speed < 0.0)              // was there enough time for a good speed?
+      return("NaN");              // no, this is "not a number"
+    return(String.valueOf(Math.round(speed))); // whole bytes per second
+  }
+
+
+/*
+  formatSpeed() method
+
+  Given a transfer rate or speed in bytes per second, format a string with the
+  speed in kilobytes per second, megabytes, gigabytes, or terabytes (whichever
+  is the most expressive).
+*/
+  static String formatSpeed(double speed)
+  {
+    double units = speed;         // start with bytes per second
+    String suffix = " B/s";       // matching string with those units
+    if (units > 1999.4) { units = units / 1024.0; suffix = " KB/s"; }
+    if (units > 1999.4) { units = units / 1024.0; suffix = " MB/s"; }
+    if (units > 1999.4) { units = units / 1024.0; suffix = " GB/s"; }
+    if (units > 1999.4) { units = units / 1024.0; suffix = " TB/s"; }
+    if (units > 1999.4) { units = units / 1024.0; suffix = " PB/s"; }
+    return(formatPointOne.format(units) + suffix); // scaled into units
+  }
+
+
+/*
+  getGuiOptions() method
+
+  Get the data buffer size, the total number of bytes to write, and other
+  options from the graphical interface.  A console application has already
+  set these from the command line.
+*/
+  static void getGuiOptions()
+  {
+    /* Data buffer size, as chosen by the user. */
+
+    if (buffer1Kbutton.isSelected()) { bufferSize = 0x400; } // 1 KB
+    else if (buffer2Kbutton.isSelected()) { bufferSize = 0x800; } // 2 KB
+    else if (buffer4Kbutton.isSelected()) { bufferSize = 0x1000; } // 4 KB
+    else if (buffer8Kbutton.isSelected()) { bufferSize = 0x2000; } // 8 KB
+    else if (buffer16Kbutton.isSelected()) { bufferSize = 0x4000; } // 16 KB
+    else if (buffer32Kbutton.isSelected()) { bufferSize = 0x8000; } // 32 KB
+    else if (buffer64Kbutton.isSelected()) { bufferSize = 0x10000; } // 64 KB
+    else if (buffer128Kbutton.isSelected()) { bufferSize = 0x20000; } // 128 KB
+    else if (buffer256Kbutton.isSelected()) { bufferSize = 0x40000; } // 256 KB
+    else if (buffer512Kbutton.isSelected()) { bufferSize = 0x80000; } // 512 KB
+    else if (buffer1Mbutton.isSelected()) { bufferSize = 0x100000; } // 1 MB
+    else if (buffer2Mbutton.isSelected()) { bufferSize = 0x200000; } // 2 MB
+    else if (buffer4Mbutton.isSelected()) { bufferSize = 0x400000; } // 4 MB
+    else if (buffer8Mbutton.isSelected()) { bufferSize = 0x800000; } // 8 MB
+    else if (buffer16Mbutton.isSelected()) { bufferSize = 0x1000000; } // 16 MB
+    else if (buffer32Mbutton.isSelected()) { bufferSize = 0x2000000; } // 32 MB
+    else if (buffer64Mbutton.isSelected()) { bufferSize = 0x4000000; } // 64 MB
+    else if (buffer128Mbutton.isSelected()) { bufferSize = 0x8000000; } // 128 MB
+    else if (buffer256Mbutton.isSelected()) { bufferSize = 0x10000000; } // 256 MB
+    else if (buffer512Mbutton.isSelected()) { bufferSize = 0x20000000; } // 512 MB
+    else { bufferSize = 0x40000; } // 256 KB (again)
+
+    /* Find the maximum number of bytes to write, a total for all temporary
+    files.  Go back in history for smaller maximums.  Java 1.4.2 was first
+    released in June 2003, if you run Windows 98 and need to only partially
+    test 1.44 MB floppy disks! */
+
+    if (file1Mbutton.isSelected()) { maxDataBytes = 0x100000L; } // 1 MB
+    else if (file10Mbutton.isSelected()) { maxDataBytes = 0xA00000L; } // 10 MB
+    else if (file100Mbutton.isSelected()) { maxDataBytes = 0x6400000L; } // 100 MB
+    else if (file1Gbutton.isSelected()) { maxDataBytes = 0x40000000L; } // 1 GB
+    else if (file10Gbutton.isSelected()) { maxDataBytes = 0x280000000L; } // 10 GB
+    else if (file100Gbutton.isSelected()) { maxDataBytes = 0x1900000000L; } // 100 GB
+    else if (file1Tbutton.isSelected()) { maxDataBytes = 0x10000000000L; } // 1 TB
+    else if (file10Tbutton.isSelected()) { maxDataBytes = 0xA0000000000L; } // 10 TB
+    else if (file100Tbutton.isSelected()) { maxDataBytes = 0x640000000000L; } // 100 TB
+    else if (file1Pbutton.isSelected()) { maxDataBytes = 0x4000000000000L; } // 1 PB
+    else if (file10Pbutton.isSelected()) { maxDataBytes = 0x28000000000000L; } // 10 PB
+    else if (file100Pbutton.isSelected()) { maxDataBytes = 0x190000000000000L; } // 100 PB
+    else if (file1Ebutton.isSelected()) { maxDataBytes = 0x1000000000000000L; } // 1 EB
+    else { maxDataBytes = MAX_FILE_SIZE; } // safe positive 64-bit integer
+
+    /* Miscellaneous options. */
+
+    blockSize = (int) parseSize((String) blockDialog.getSelectedItem());
+    engineType = engineDialog.getSelectedIndex(); // index is engine number
+    engineList = new int[] {engineType}; // only one engine from GUI
+    evictFlag = evictCheckbox.isSelected(); // if we clear disk cache
+    ignoreSeconds = ignoreCheckbox.isSelected()
+      ? Integer.parseInt((String) ignoreDialog.getSelectedItem()) : 0;
+    modeType = modeDialog.getSelectedIndex(); // index is mode number
+    patternType = patternDialog.getSelectedIndex(); // index is pattern number
+    threadCount = Integer.parseInt((String) threadDialog.getSelectedItem());
+    promptFlag = promptCheckbox.isSelected(); // if we prompt before reading
+    verifyFlag = verifyCheckbox.isSelected(); // if we check data when reading
+    if (syncDialog.getSelectedIndex() == 0) // never force data to drive
+      syncBytes = 0;
+    else if (syncDialog.getSelectedIndex() == 1) // at close of each file
+      syncBytes = -1;
+    else                          // after a number of bytes
+      syncBytes = parseSize((String) syncDialog.getSelectedItem());
+
+    /* A sweep goes from the smallest size up to the selected buffer size, or
+    the selected block size for random tests. */
+
+    sweepMax = sweepMin = 0;      // assume only one size
+    if (sweepCheckbox.isSelected()) // if the user wants a sweep
+    {
+      sweepMax = (modeType != MODE_SEQUENTIAL) ? blockSize : bufferSize;
+      sweepMin = Math.min(SWEEP_MIN, sweepMax);
+    }
+
+  } // end of getGuiOptions() method
+
+
+/*
+  markBlocks() method
+
+  Put our run number, the file number, and the file position in the header of
+  each block in a data buffer, just before the buffer is written.  This is a
+  few bytes per block, so it costs almost nothing.  Only blocks up to the
+  buffer's limit are marked, because async requests may be larger than what
+  they write.  Random and compressible data is marked even when not verifying,
+  so that no two blocks are the same: otherwise, the few buffers that we rotate
+  through would be easy for a drive with deduplication to collapse.
+*/
+  static void markBlocks(ByteBuffer buffer, int fileNumber, long position)
+  {
+    int size = buffer.limit();    // number of bytes to be written
+    for (int i = 0; (i + VERIFY_BLOCK) <= size; i += VERIFY_BLOCK)
+    {
+      buffer.putLong(i, verifySeed);
+      buffer.putLong((i + 8), fileNumber);
+      buffer.putLong((i + 16), (position + i));
+    }
+  }
+
+
+/*
+  mixedFiles() method
+
+  Read and write random blocks in the files that we just created, at the same
+  time, with separate reader and writer threads.  The combined speed is
+  reported like other passes, then split into read and write speeds by the
+  bytes that each did, along with request times for each side.
+*/
+  static void mixedFiles()
+  {
+    int i;                        // index variable
+    DriveSpeed1Latency reads, writes; // combined request times, each side
+    long read, written;           // bytes done by each side
+    double speed;                 // final average speed, or negative
+
+    mixReaders.set(threadCount);  // all threads run, even if they do nothing
+    mixWriters.set(threadCount);
+    beginPass(ERASE_MIXED);       // start clock, counters
+    runWorkers(WORKER_MIXED);     // readers and writers at the same time
+    stopPass();                   // stop clock, update status
+    if (cancelFlag)               // no speeds if the user cancelled us
+      return;
+
+    putResult("mixed.read.percent", String.valueOf(mixPercent));
+    speed = endPass("mixed");     // final average speed, both together
+    written = writeBytes.sum();   // bytes written by writer threads
+    read = bytesAllFiles.sum() - written; // the rest were read
+    lastReadSpeed = lastWriteSpeed = -1.0; // assume no speed for each side
+    if ((speed >= 0.0) && ((read + written) > 0))
+    {
+      lastReadSpeed = speed * read / (read + written);
+      lastWriteSpeed = speed * written / (read + written);
+    }
+    putResult("mixed.read.bytes", String.valueOf(read));
+    putResult("mixed.read.speed", formatResult(lastReadSpeed));
+    putResult("mixed.read.iops", formatResult((lastReadSpeed < 0.0)
+      ? lastReadSpeed : (lastReadSpeed / blockSize)));
+    putResult("mixed.write.bytes", String.valueOf(written));
+    putResult("mixed.write.speed", formatResult(lastWriteSpeed));
+    putResult("mixed.write.iops", formatResult((lastWriteSpeed < 0.0)
+      ? lastWriteSpeed : (lastWriteSpeed / blockSize)));
+    if (consoleFlag == false)     // only if we have a graphical interface
+    {
+      readSpeedText.setText((lastReadSpeed < 0.0) ? TOO_FAST_TEXT
+        : formatSpeed(lastReadSpeed));
+      writeSpeedText.setText((lastWriteSpeed < 0.0) ? TOO_FAST_TEXT
+        : formatSpeed(lastWriteSpeed));
+    }
+
+    /* Request times for each side, because reads waiting behind writes is
+    often what goes wrong. */
+
+    reads = new DriveSpeed1Latency();
+    writes = new DriveSpeed1Latency();
+    for (i = 0; i < threadCount; i ++)
+    {
+      writes.merge(workerLatency[i]); // writers come first
+      reads.merge(workerLatency[i + threadCount]);
+    }
+    if (reads.total > 0)          // only if there were any reads
+    {
+      putResult("mixed.read.latency.p50.ns", String.valueOf(
+        reads.percentile(0.5)));
+      putResult("mixed.read.latency.p99.ns", String.valueOf(
+        reads.percentile(0.99)));
+    }
+    if (writes.total > 0)         // only if there were any writes
+    {
+      putResult("mixed.write.latency.p50.ns", String.valueOf(
+        writes.percentile(0.5)));
+      putResult("mixed.write.latency.p99.ns", String.valueOf(
+        writes.percentile(0.99)));
+    }
+  }
+
+
+/*
+  mixWait() method
+
+  Wait while one side of a mixed test is ahead of the ratio of bytes read to
+  bytes written, unless the other side has finished.  The wait is short, so
+  that neither side falls behind by more than a few requests.
+*/
+  static void mixWait(boolean writing)
+  {
+    long read, written;           // bytes done by each side
+
+    while (cancelFlag == false)   // while the user hasn't cancelled us
+    {
+      written = writeBytes.sum(); // bytes written by writer threads
+      read = bytesAllFiles.sum() - written; // the rest were read
+      if (writing ? ((mixReaders.get() == 0)
+        || ((written * mixPercent) <= (read * (100 - mixPercent))))
+        : ((mixWriters.get() == 0)
+        || ((read * (100 - mixPercent)) <= (written * mixPercent))))
+      {
+        return;                   // this side may go ahead
+      }
+      java.util.concurrent.locks.LockSupport.parkNanos(MIX_WAIT);
+    }
+  }
+
+
+/*
+  paceWait() method
+
+  Wait until a writer thread's next request is scheduled to start, if the
+  user chose a target rate for writing, and return the scheduled clock time:
+  request times are measured from there, so a slow request also delays the
+  ones after it.  The rate is for each drive folder, like the number of
+  threads.  Each thread has an equal part of its folder's rate, and the
+  threads are spread evenly over the first interval.  Without a target rate,
+  when not writing, or when <paceBytes> is zero because the pass only creates
+  files for a later test, return the current clock time.
+*/
+  static long paceWait(int index, long count)
+  {
+    int folders;                  // number of drive folders being tested
+    double interval;              // nanoseconds between this thread's requests
+    long now;                     // current nanosecond clock
+    long scheduled;               // when this request should start
+    int threads;                  // number of writer threads in one folder
+
+    now = System.nanoTime();
+    if ((rateTarget <= 0.0) || (eraseState != ERASE_WRITE)
+      || (paceBytes <= 0))
+    {
+      return(now);                // not paced, time only the request
+    }
+    folders = driveList.length;   // each folder has the whole rate
+    threads = threadCount / folders; // and its own threads, taken in turn
+    interval = 1e9 * threads * (rateIopsFlag ? 1.0 : paceBytes) / rateTarget;
+    scheduled = startTime + (long) (interval * (count + ((double) (index
+      / folders) / threads)));
+    while ((cancelFlag == false) && ((now - scheduled) < 0)) // too early
+    {
+      java.util.concurrent.locks.LockSupport.parkNanos(scheduled - now);
+      now = System.nanoTime();
+    }
+    paceLag.accumulate(now - scheduled); // how late this request started
+    return(scheduled);
+  }
+
+
+/*
+  parseSize() method
+
+  Parse a size in bytes from the command line, with an optional suffix: K for
+  kilobytes, M for megabytes, G for gigabytes, T for terabytes, P for
+  petabytes, or E for exabytes.  These are powers of two, the same as the
+  choices in the graphical interface.  Return -1 if the size is not valid.
+*/
+  static long parseSize(String text)
+  {
+    Matcher matcher;              // pattern matcher for <text>
+    int shift;                    // number of bits to shift for suffix
+    String suffix;                // optional suffix letter, or empty string
+    long value;                   // parsed number before suffix
+
+    matcher = Pattern.compile("\\s*(\\d{1,18})\\s*([kmgtpe]?)b?\\s*").matcher(
+      text.toLowerCase());        // parse number with optional suffix
+    if (matcher.matches() == false) // if not the correct syntax
+      return(-1);                 // not a valid size
+    value = Long.parseLong(matcher.group(1)); // can't fail with 18 digits
+    suffix = matcher.group(2);    // kilo, mega, giga, etc, or nothing
+    shift = (suffix.length() > 0) ? (10 * ("kmgtpe".indexOf(suffix) + 1)) : 0;
+    if ((shift > 0) && (value > (MAX_FILE_SIZE >> shift))) // too big?
+      return(-1);                 // not a valid size
+    return(value << shift);       // scaled number of bytes
+  }
+
+
+/*
+  putError() method
+
+  Tell the user about an error: with a pop-up dialog box if we are a graphical
+  application, or on standard error if we are a console application.
+*/
+  static void putError(String text)
+  {
+    if (consoleFlag)              // if we are a console application
+    {
+      System.err.println(text);   // write error message on standard error
+      exitStatus = -1;            // and remember that something went wrong
+    }
+    else                          // graphical interface gets a dialog box
+      JOptionPane.showMessageDialog(mainFrame, text);
+  }
+
+
+/*
+  putResult() method
+
+  Report one result as a "name=value" pair on standard output, in a form that
+  scripts can easily parse.  The graphical interface shows the same results in
+  its "Details" box.  Worker threads and async completion handlers also report
+  results (such as bad blocks), so only one thread at a time may be here, and
+  the "Details" box is only changed by the GUI thread.
+*/
+  static synchronized void putResult(String name, String value)
+  {
+    if (quietFlag)                // results from a warmup cycle
+      return;                     // are not reported
+    if (resultsList != null)      // saving results for this test
+      resultsList.add(name + "=" + value.replace('\t', ' ').replace('\n',
+        ' '));                    // one line in results file, no tabs
+    if (consoleFlag)              // if we are a console application
+      System.out.println(name + "=" + value);
+    else                          // graphical interface has a details box
+    {
+      final String line = name + " = " + value + "\n"; // for GUI thread
+      SwingUtilities.invokeLater(() -> detailText.append(line));
+    }
+  }
+
+
+/*
+  queueAdd() method
+
+  Add a new byte count and clock time to the end of our queue of pending data.
+  This is really a circular buffer, because that's faster and doesn't create
+  numerous Long objects like Vector or other classes would.
+*/
+  static void queueAdd(long byteCount, long clockTime)
+  {
+    int i;                        // index variable
+
+    if (queueItemCount < queueDataBytes.length) // stop if too many items
+    {
+      i = (queueFirstIndex + queueItemCount) % queueDataBytes.length;
+      queueDataBytes[i] = byteCount; // save number of bytes
+      queueDataClock[i] = clockTime; // save clock time in nanoseconds
+      queueItemCount ++;          // one more item in pending clock data
+    }
+    else
+      throw new IndexOutOfBoundsException("pending clock data is full");
+  }
+
+
+/*
+  queueClear() method
+
+  Clear or initialize our queue of pending data about byte counts and clock
+  times.  The size depends upon the delay and the sample interval.
+*/
+  static void queueClear()
+  {
+    int size = (int) (ignoreDelayNanos / (1000000L * sampleMillis))
+      + QUEUE_SPARE;              // one entry for each sample in delay
+    if ((queueDataBytes == null) || (queueDataBytes.length != size))
+    {
+      queueDataBytes = new long[size];
+      queueDataClock = new long[size];
+    }
+    queueFirstIndex = 0;          // first item goes at index zero
+    queueItemCount = 0;           // there is nothing in the queue
+  }
+
+
+/*
+  queueDelete() method
+
+  Delete the first byte count and clock time from our queue of pending data.
+*/
+  static void queueDelete()
+  {
+    if (queueItemCount > 0)       // must be something before we can delete
+    {
+      queueFirstIndex = (queueFirstIndex + 1) % queueDataBytes.length;
+      queueItemCount --;          // one less item in pending clock data
+    }
+    else
+      throw new IndexOutOfBoundsException("pending clock data is empty");
+  }
+
+
+/*
+  randomFiles() method
+
+  Read or write single blocks at random positions in the files created by
+  writeFiles(), and report the number of I/O operations per second (IOPS).
+  Each request is aligned to a multiple of the block size, which is how
+  databases and other programs with small records use a drive.  The work is
+  done by randomWorker() in one or more threads.
+*/
+  static void randomFiles(boolean writing)
+  {
+    String name;                  // prefix for reporting results
+    double speed;                 // final average speed, or negative
+
+    paceBytes = blockSize;        // size of each request, if writes paced
+    beginPass(writing ? ERASE_WRITE : ERASE_READ); // start clock, counters
+    runWorkers(writing ? WORKER_RANDOM_WRITE : WORKER_RANDOM_READ);
+    stopPass();                   // stop clock, update status
+    if (cancelFlag == false)      // only if the user hasn't cancelled us
+    {
+      name = writing ? "random.write" : "random.read"; // prefix for results
+      speed = endPass(name);      // final average speed in bytes per second
+      putResult((name + ".iops"), formatResult((speed < 0.0) ? speed
+        : (speed / blockSize)));  // I/O operations per second
+    }
+  }
+
+
+/*
+  randomWorker() method
+
+  One worker thread for randomFiles().  Each worker has its own files and its
+  own share of the bytes.  Stop after the same number of bytes as were
+  written, or after a time limit, whichever comes first.  All errors are
+  unexpected and will be reported.  For mixedFiles(), the reader and the
+  writer with the same files (index modulo <threadCount>) split the share by
+  the mix ratio.
+*/
+  static void randomWorker(int index, boolean writing)
+  {
+    ByteBuffer block;             // data buffer for this worker
+    long blockCount;              // number of whole blocks in our files
+    long[] blockStart;            // first block number in each file
+    long bytesSinceSync;          // bytes written since last sync
+    long bytesThisWorker;         // number of bytes read or written by us
+    long clockLimit;              // clock time when we stop, in nanoseconds
+    java.util.zip.CRC32C crc;     // checksum for verifying data, or null
+    int fileCount;                // number of files for this worker
+    DriveSpeed1File[] files;      // open files for this worker
+    int first, last, middle;      // binary search for file index
+    int owner;                    // worker number that owns our files
+    File fp;                      // File object for one temporary file
+    int i;                        // index variable
+    DriveSpeed1Latency latency;   // request times for this worker
+    int length;                   // number of bytes read, or -1
+    long number;                  // random block number, all our files
+    long position;                // byte position in file for one block
+    java.util.Random random;      // pseudo-random number generator
+    long requests;                // number of requests by this worker
+    long share;                   // maximum bytes for this worker
+    long started;                 // nanosecond clock when request started
+
+    /* Number the whole blocks in our files, so that one random number can
+    select both the file and the position in that file.  Missing files have
+    no blocks. */
+
+    owner = index % threadCount;  // mixed readers use writers' files
+    block = workerBlocks[index];  // each worker has its own buffer
+    latency = workerLatency[index]; // and its own request times
+    crc = verifyFlag ? new java.util.zip.CRC32C() : null;
+    fileCount = (totalFilesCreated - owner + threadCount - 1) / threadCount;
+    if (fileCount <= 0)           // there are no files for this worker
+      return;
+    blockStart = new long[fileCount];
+    blockCount = 0;               // no blocks found yet
+    for (i = 0; i < fileCount; i ++) // for each of our files
+    {
+      blockStart[i] = blockCount; // first block number in this file
+      blockCount += Math.max(0, fileSizes[owner + 1 + (i * threadCount)])
+        / blockSize;              // ignore any partial block
+    }
+    if (blockCount == 0)          // files are too small for even one block
+      return;
+
+    /* Open all of our files before doing any requests.  Random writes change
+    files in place, without truncating them. */
+
+    files = new DriveSpeed1File[fileCount];
+    for (i = 0; i < fileCount; i ++) // for each of our files
+    {
+      if (fileSizes[owner + 1 + (i * threadCount)] < 0)
+        continue;                 // this file number wasn't created
+      fp = createFile(owner + 1 + (i * threadCount)); // from file name
+      try
+      {
+        files[i] = new DriveSpeed1File(fp, engineType,
+          (writing ? FILE_UPDATE : FILE_READ));
+        files[i].attach(workerQueues[index], (owner + 1
+          + (i * threadCount))); // only for async engine
+      }
+      catch (IOException ioe)     // all errors are bad news here
+      {
+        putError("Can't open file " + fp.getName() + ": " + ioe.getMessage());
+        cancelFlag = true;        // stop all threads and any further passes
+        break;                    // exit early from <for> loop
+      }
+    }
+
+    /* Do one block at a time until we reach a limit. */
+
+    bytesSinceSync = 0;           // no bytes waiting to be forced to drive
+    bytesThisWorker = 0;          // no bytes read or written yet
+    clockLimit = startTime + (1000000000L * timeLimit); // when we must stop
+    requests = 0;                 // no requests yet, for pacing
+    random = new java.util.Random(); // different positions for each test
+    share = totalBytesWritten / threadCount; // same amount as was written
+    if (modeType == MODE_MIXED)   // readers and writers split the bytes
+      share = share * (writing ? (100 - mixPercent) : mixPercent) / 100;
+    while ((cancelFlag == false)  // while the user hasn't cancelled us
+      && (bytesThisWorker < share) // and our share isn't done
+      && ((System.nanoTime() - clockLimit) < 0)) // and there is time
+    {
+      if (modeType == MODE_MIXED) // don't get ahead of the other side
+        mixWait(writing);
+      number = (random.nextLong() >>> 1) % blockCount; // random block
+      first = 0;                  // binary search for file with this block
+      last = fileCount - 1;
+      while (first < last)        // find last file starting at or before
+      {
+        middle = (first + last + 1) / 2;
+        if (blockStart[middle] <= number) first = middle;
+        else last = middle - 1;
+      }
+      position = (number - blockStart[first]) * blockSize; // in file
+      if (writing && markFlag     // block headers, unique or for checking
+        && (engineType != ENGINE_ASYNC)) // async marks its own buffers
+      {
+        markBlocks(block, (owner + 1 + (first * threadCount)), position);
+      }
+      length = blockSize;         // bytes written, or changed by reading
+      try
+      {
+        started = paceWait(index, requests ++); // time request, or from
+                                  // ... when it was scheduled to start
+        if (writing)              // write one block of data
+          files[first].write(block, position);
+        else                      // read one block
+          length = files[first].read(block, position);
+        if (engineType != ENGINE_ASYNC) // async requests count themselves
+          latency.record(System.nanoTime() - started);
+      }
+      catch (IOException ioe)     // all errors are bad news here
+      {
+        putError("Random " + (writing ? "write" : "read") + " error on file "
+          + files[first].file.getName() + ": " + ioe.getMessage());
+        cancelFlag = true;        // stop all threads and any further passes
+        break;                    // exit early from <while> loop
+      }
+      if ((writing == false) && verifyFlag // check data after timing
+        && (engineType != ENGINE_ASYNC)) // async requests check themselves
+      {
+        checkBlocks(block, length, (owner + 1 + (first * threadCount)),
+          position, crc);
+      }
+      if (engineType != ENGINE_ASYNC) // async requests count themselves
+      {
+        bytesAllFiles.add(blockSize); // add to total bytes done all files
+        driveBytes[driveIndex(index)].add(blockSize); // and this folder
+        if (writing)              // mixed tests also count writes alone
+          writeBytes.add(blockSize);
+      }
+      bytesThisWorker += blockSize; // add to bytes done by this worker
+      if (writing && (syncBytes > 0) // force all of our files to drive
+        && ((bytesSinceSync += blockSize) >= syncBytes))
+      {
+        for (i = 0; i < fileCount; i ++)
+          if ((files[i] != null) && (syncFile(files[i]) == false))
+          {
+            putError("Random sync error on file " + files[i].file.getName());
+            cancelFlag = true;    // stop all threads and any further passes
+            break;                // exit early from <for> loop
+          }
+        bytesSinceSync = 0;       // nothing waiting after sync
+      }
+    }
+
+    for (i = 0; i < fileCount; i ++) // close all of our files
+    {
+      if (writing && (syncBytes != 0) && (cancelFlag == false)
+        && (files[i] != null))    // force any changes before closing
+      {
+        syncFile(files[i]);       // already reported any errors above
+      }
+      if (files[i] != null) files[i].close();
+    }
+  } // end of randomWorker() method
+
+
+/*
+  readFiles() method
+
+  Read the files that we just created.  The work is done by readWorker() in
+  one or more threads.
+*/
+  static void readFiles()
+  {
+    beginPass(ERASE_READ);        // start clock, counters for reading
+    runWorkers(WORKER_READ);      // read all files, wait for threads
+    stopPass();                   // stop clock, update status
+  }
+
+
+/*
+  readManifest() method
+
+  Read the manifest for files kept by an earlier test, and check that they
+  can be read now: the same folders and number of threads, and each file still
+  there with the same size.  Set the file sizes and run number for reading.
+  Return true if the files are good, or report an error and return false.
+*/
+  static boolean readManifest()
+  {
+    long bytes;                   // total bytes in all files
+    java.util.ArrayList<String> folders; // drive folders when written
+    File fp;                      // File object for manifest, or one file
+    int i, k;                     // index variables
+    String line;                  // one line from the manifest
+    String name, value;           // one "name=value" pair from the manifest
+    String problem;               // description of problem, or null
+    BufferedReader reader;        // for reading manifest file
+    Long seed;                    // run number in block headers, or null
+    int threads;                  // number of threads when written
+    boolean verify;               // true if files have block headers
+
+    if ((modeType != MODE_SEQUENTIAL) && (modeType != MODE_RANDOM))
+    {
+      putError("Reusing files needs a sequential or random test.");
+      return(false);
+    }
+    if (fileSizes == null) fileSizes = new long[MAX_FILE_COUNT + 1];
+    for (i = 0; i <= MAX_FILE_COUNT; i ++)
+      fileSizes[i] = -1;          // no files known yet
+    folders = new java.util.ArrayList<String>();
+    fp = new File(driveList[0], MANIFEST_NAME);
+    problem = null;               // assume that manifest is good
+    seed = null;
+    threads = -1;
+    verify = false;
+    try
+    {
+      reader = new BufferedReader(new FileReader(fp));
+      try
+      {
+        while ((line = reader.readLine()) != null)
+        {
+          if ((k = line.indexOf('=')) < 0) // ignore comments, blank lines
+            continue;
+          name = line.substring(0, k);
+          value = line.substring(k + 1);
+          if (name.equals("seed"))
+            seed = Long.valueOf(value);
+          else if (name.equals("threads"))
+            threads = Integer.parseInt(value);
+          else if (name.equals("folder"))
+            folders.add(value);
+          else if (name.equals("verify"))
+            verify = value.equals("on");
+          else if (name.startsWith("file."))
+          {
+            i = Integer.parseInt(name.substring(5));
+            if ((i < 1) || (i > MAX_FILE_COUNT))
+              throw new NumberFormatException(name);
+            fileSizes[i] = Long.parseLong(value);
+          }
+        }
+      }
+      finally { reader.close(); } // close file, even after an error
+    }
+    catch (IOException ioe)       // usually because there is no manifest
+    {
+      problem = "can't read " + fp.getPath() + " (use -keep first)";
+    }
+    catch (NumberFormatException nfe) // manifest was changed by someone
+    {
+      problem = "bad line in " + fp.getPath();
+    }
+
+    /* Check the manifest against the current options and the files. */
+
+    if ((problem == null) && (seed == null))
+      problem = "no run number in " + fp.getPath();
+    if ((problem == null) && (threads != threadCount))
+      problem = "files were written with " + threads + " thread(s), not "
+        + threadCount;
+    for (k = 0; (problem == null) && (k < driveList.length); k ++)
+      if ((folders.size() != driveList.length) || (folders.get(k).equals(
+        driveList[k].getAbsolutePath()) == false))
+      {
+        problem = "files were written to different folders";
+      }
+    if ((problem == null) && verifyFlag && (verify == false))
+      problem = "files were written without -verify";
+    bytes = 0;                    // no bytes found yet
+    totalFilesCreated = 0;        // no files found yet
+    for (i = 1; (problem == null) && (i <= MAX_FILE_COUNT); i ++)
+    {
+      if (fileSizes[i] < 0)       // skip numbers that weren't created
+        continue;
+      fp = createFile(i);
+      if ((fp.isFile() == false) || (fp.length() != fileSizes[i]))
+        problem = "file " + fp.getPath() + " is missing or has changed";
+      bytes += fileSizes[i];
+      totalFilesCreated = i;      // highest file number
+    }
+    if ((problem == null) && (totalFilesCreated == 0))
+      problem = "no files in " + MANIFEST_NAME;
+    if (problem != null)
+    {
+      putError("Can't reuse files: " + problem + ".");
+      return(false);
+    }
+    totalBytesWritten = bytes;    // random tests use same share per thread
+    verifySeed = seed;            // block headers from earlier test
+    putResult("reuse.files", String.valueOf(totalFilesCreated));
+    putResult("reuse.bytes", String.valueOf(bytes));
+    return(true);
+  }
+
+
+/*
+  readOrderWorker() method
+
+  One worker thread for readFiles(), when the user wants an order other than
+  the normal beginning to end.  Each file is read in steps: the position for
+  each step comes from readPosition().  The "interleaved" order opens several
+  files and does one step in each file in turn.  Other orders have one file at
+  a time.  All errors are unexpected and will be reported.
+*/
+  static void readOrderWorker(int index)
+  {
+    ByteBuffer buffer;            // data buffer for this worker
+    int count;                    // number of files open at the same time
+    java.util.zip.CRC32C crc;     // checksum for verifying data, or null
+    int fileNumber;               // next file number in <totalFiles>
+    File[] fps;                   // File objects for open files
+    int i, k;                     // index variables
+    DriveSpeed1File[] inps;       // I/O engines for reading open files
+    DriveSpeed1Latency latency;   // request times for this worker
+    long end;                     // file position after this step
+    int length;                   // number of bytes read
+    boolean more;                 // true if any file has more to read
+    int[] numbers;                // file numbers for open files
+    int opened;                   // number of files actually opened
+    long position;                // file position for this step
+    long started;                 // nanosecond clock when request started
+    long step;                    // number of steps done in each file
+
+    buffer = workerBuffers[index]; // each worker has its own buffer
+    latency = workerLatency[index]; // and its own request times
+    crc = verifyFlag ? new java.util.zip.CRC32C() : null;
+    count = (orderType == ORDER_INTERLEAVED) ? interleaveCount : 1;
+    fps = new File[count];
+    inps = new DriveSpeed1File[count];
+    numbers = new int[count];
+    fileNumber = index + 1;       // start with first file we created
+    while (cancelFlag == false)   // while the user hasn't cancelled us
+    {
+      /* Choose the next files for this worker, skipping numbers that weren't
+      created. */
+
+      for (i = 0; (i < count) && (fileNumber <= totalFilesCreated);
+        fileNumber += threadCount)
+      {
+        if (fileSizes[fileNumber] >= 0) // only if this file was created
+          numbers[i ++] = fileNumber;
+      }
+      if (i == 0)                 // no more files for this worker
+        break;                    // exit early from outer <while> loop
+
+      /* Open the files, then read one step from each file in turn, until
+      every file is done. */
+
+      opened = 0;                 // no files open yet
+      k = 0;                      // file for error message
+      try                         // general try-catch for all read errors
+      {
+        for (k = 0; k < i; k ++)
+        {
+          fps[k] = createFile(numbers[k]);
+          inps[k] = new DriveSpeed1File(fps[k], engineType, FILE_READ);
+          inps[k].attach(workerQueues[index], numbers[k]); // async engine
+          opened ++;
+        }
+        for (step = 0; cancelFlag == false; step ++)
+        {
+          more = false;           // assume that all files are done
+          for (k = 0; (cancelFlag == false) && (k < opened); k ++)
+          {
+            if ((position = readPosition(fileSizes[numbers[k]], step)) < 0)
+              continue;           // this file is done
+            more = true;          // at least one file isn't done
+            end = Math.min(fileSizes[numbers[k]], (position + bufferSize));
+            while ((cancelFlag == false) && (position < end)) // whole step
+            {
+              started = System.nanoTime(); // time only the request itself
+              length = inps[k].read(buffer, position); // may be partial
+              if ((length <= 0) || (engineType == ENGINE_ASYNC))
+                break;            // async requests count themselves
+              latency.record(System.nanoTime() - started);
+              if (verifyFlag)     // check only whole blocks
+              {
+                if ((position + length) < end) // rest of step comes next
+                  length -= length % VERIFY_BLOCK; // re-read partial block
+                checkBlocks(buffer, (length - (length % VERIFY_BLOCK)),
+                  numbers[k], position, crc);
+              }
+              bytesAllFiles.add(length); // add to total bytes, all files
+              driveBytes[driveIndex(index)].add(length); // and this folder
+              position += length; // next part of this step, if partial
+            }
+          }
+          if (more == false)      // have all files been read?
+            break;                // exit early from inner <for> loop
+        }
+      }
+      catch (IOException ioe)     // all errors are bad news when reading
+      {
+        putError("Read error on file " + fps[k].getName());
+        cancelFlag = true;        // stop all threads and any further passes
+      }
+      finally                     // close all files, even after an error
+      {
+        for (k = 0; k < opened; k ++) // frees native buffers and mappings
+          inps[k].close();
+      }
+    }
+  }
+
+
+/*
+  readPosition() method
+
+  Return the file position for one step in reading a file of the given size,
+  in the order chosen by the user, or -1 if the file is done.  Each step is
+  one data buffer.
+*/
+  static long readPosition(long size, long step)
+  {
+    long buffers;                 // number of buffers, last may be partial
+
+    buffers = (size + bufferSize - 1) / bufferSize;
+    if (orderType == ORDER_BACKWARD) // last buffer first
+      step = buffers - 1 - step;
+    else if (orderType == ORDER_STRIDED) // read one, skip some
+      step *= strideCount + 1;
+    return(((step >= 0) && (step < buffers)) ? (step * bufferSize) : -1);
+  }
+
+
+/*
+  readWorker() method
+
+  One worker thread for readFiles().  Data is checked only if the user asks
+  for verification.  All errors are unexpected and will be reported.
+*/
+  static void readWorker(int index)
+  {
+    ByteBuffer buffer;            // data buffer for this worker
+    long bytesThisFile;           // number of bytes in current file
+    java.util.zip.CRC32C crc;     // checksum for verifying data, or null
+    int fileNumber;               // current file number in <totalFiles>
+    File fp;                      // File object for one temporary file
+    int i;                        // number of bytes read
+    DriveSpeed1File inp;          // I/O engine for reading one file
+    DriveSpeed1Latency latency;   // request times for this worker
+    long started;                 // nanosecond clock when request started
+
+    if (orderType != ORDER_FORWARD) // other orders have their own loop
+    {
+      readOrderWorker(index);
+      return;
+    }
+    buffer = workerBuffers[index]; // each worker has its own buffer
+    latency = workerLatency[index]; // and its own request times
+    crc = verifyFlag ? new java.util.zip.CRC32C() : null;
+    fileNumber = index + 1;       // start with first file we created
+    while ((cancelFlag == false)  // while the user hasn't cancelled us
+      && (fileNumber <= totalFilesCreated)) // and there are more files
+    {
+      if (fileSizes[fileNumber] < 0) // skip numbers that weren't created
+      {
+        fileNumber += threadCount; // now do our next temporary file
+        continue;
+      }
+      fp = createFile(fileNumber);
+      inp = null;                 // file isn't open yet
+      try                         // general try-catch for all read errors
+      {
+        bytesThisFile = 0;        // no bytes read from this file yet
+        inp = new DriveSpeed1File(fp, engineType, FILE_READ); // open file
+        inp.attach(workerQueues[index], fileNumber); // only for async engine
+        while (cancelFlag == false) // while the user hasn't cancelled us
+        {
+          started = System.nanoTime(); // time only the request itself
+          if ((i = inp.read(buffer, bytesThisFile)) <= 0) // end of file?
+            break;                // exit early from inner <while> loop
+          if (engineType == ENGINE_ASYNC) // async requests count themselves
+          {
+            bytesThisFile += i;   // next position in file
+            continue;             // nothing more until request finishes
+          }
+          latency.record(System.nanoTime() - started);
+          if (verifyFlag)         // check only whole blocks
+          {
+            if ((bytesThisFile + i) < fileSizes[fileNumber]) // not the end
+              i -= i % VERIFY_BLOCK; // partial block will be read again
+            checkBlocks(buffer, (i - (i % VERIFY_BLOCK)), fileNumber,
+              bytesThisFile, crc);
+          }
+          bytesAllFiles.add(i);   // add to total bytes done all files
+          driveBytes[driveIndex(index)].add(i); // and this folder
+          bytesThisFile += i;     // add to bytes done for current file
+        }
+      }
+      catch (IOException ioe)     // all errors are bad news when reading
+      {
+        putError("Read error on file " + fp.getName());
+                                  // not very helpful without ioe.getMessage()
+        cancelFlag = true;        // stop all threads and any further passes
+        break;                    // exit early from outer <while> loop
+      }
+      finally                     // close the input file, even after an error
+      {
+        if (inp != null) inp.close(); // frees native buffers and mappings
+      }
+      fileNumber += threadCount;  // now do our next temporary file
+    }
+  }
+
+
+/*
+  recordKey() method
+
+  Return the options from one test that must be the same for a baseline, as a
+  string that is easy to compare.
+*/
+  static String recordKey(String[] fields)
+  {
+    int i, k;                     // index variables
+    StringBuffer result;          // faster than String for multiple appends
+
+    result = new StringBuffer();
+    for (i = 0; i < fields.length; i ++)
+      for (k = 0; k < RESULTS_KEYS.length; k ++)
+        if (fields[i].startsWith(RESULTS_KEYS[k] + "="))
+          result.append(fields[i] + "\t");
+    return(result.toString());
+  }
+
+
+/*
+  recordSpeeds() method
+
+  Return the speeds from one test, in the order reported, with the engine,
+  depth, and sweep size as part of each name.  These are speeds for whole
+  passes, operations per second for small files, and the mean speeds from
+  repeated cycles (not the speed of each cycle).  Speeds that couldn't be
+  measured are skipped.
+*/
+  static java.util.Map<String, Double> recordSpeeds(String[] fields)
+  {
+    String depth, engine, sweep;  // where in the test we are
+    int i, k;                     // index variables
+    String name, value;           // one result from the test
+    boolean repeating;            // true if in repeated cycles
+    java.util.Map<String, Double> result; // speeds by name
+
+    result = new java.util.LinkedHashMap<String, Double>();
+    depth = engine = sweep = "";  // no engine yet, or "files" test
+    repeating = false;
+    for (i = 0; i < fields.length; i ++)
+    {
+      if ((k = fields[i].indexOf('=')) < 0) // ignore anything strange
+        continue;
+      name = fields[i].substring(0, k);
+      value = fields[i].substring(k + 1);
+      if (name.equals("engine"))  // new engine resets everything
+      {
+        engine = value + ".";
+        depth = sweep = "";
+        repeating = false;
+      }
+      else if (name.equals("depth")) // new depth for async engine
+      {
+        depth = "depth" + value + ".";
+        sweep = "";
+        repeating = false;
+      }
+      else if (name.equals("sweep.bytes")) // new size in a sweep
+      {
+        sweep = "sweep" + value + ".";
+        repeating = false;
+      }
+      else if (name.equals("repeat")) // each cycle is too noisy
+        repeating = true;
+      else if ((name.endsWith(".speed") && (repeating == false)
+        && (name.indexOf(".cliff.") < 0) && (name.indexOf(".verify.") < 0))
+        || name.endsWith(".ops")
+        || (name.startsWith("repeat.") && name.endsWith(".mean")))
+      {
+        try                       // "NaN" is a number, but not a speed
+        {
+          double speed = Double.parseDouble(value);
+          if (Double.isNaN(speed) == false)
+            result.put((engine + depth + sweep + name), speed);
+        }
+        catch (NumberFormatException nfe) { /* ignore bad speeds */ }
+      }
+    }
+    return(result);
+  }
 
-    buffer2Mbutton = new JRadioButton("2 MB");
-    if (buttonFont != null) buffer2Mbutton.setFont(buttonFont);
-    group12.add(buffer2Mbutton);
-//  panel11.add(buffer2Mbutton);  // currently disabled: too similar
 
-    buffer4Mbutton = new JRadioButton("4 MB");
-    if (buttonFont != null) buffer4Mbutton.setFont(buttonFont);
-    group12.add(buffer4Mbutton);
-    panel11.add(buffer4Mbutton);
+/*
+  rejectDriveFolder() method
 
-    buffer8Mbutton = new JRadioButton("8 MB");
-    if (buttonFont != null) buffer8Mbutton.setFont(buttonFont);
-    group12.add(buffer8Mbutton);
-//  panel11.add(buffer8Mbutton);  // currently disabled: too similar
+  Cancel the drive folder selection and tell the user why.
+*/
+  static void rejectDriveFolder(String text)
+  {
+    driveList = null;             // cancel any previous selection
+    driveSelection = null;
+    if (consoleFlag)              // if we are a console application
+      putError(text);             // write error message on standard error
+    else                          // graphical interface
+    {
+      progressBar.setString(text); // show message in status text
+      progressBar.setValue(0);    // and clear any previous status value
+      startButton.setEnabled(false); // can't start with this
+    }
+  }
 
-    buffer16Mbutton = new JRadioButton("16 MB");
-    if (buttonFont != null) buffer16Mbutton.setFont(buttonFont);
-    group12.add(buffer16Mbutton);
-//  panel11.add(buffer16Mbutton); // currently disabled: too big
 
-    buffer32Mbutton = new JRadioButton("32 MB");
-    if (buttonFont != null) buffer32Mbutton.setFont(buttonFont);
-    group12.add(buffer32Mbutton);
-//  panel11.add(buffer32Mbutton); // currently disabled: too big
+/*
+  reportRepeat() method
 
-    buffer64Mbutton = new JRadioButton("64 MB");
-    if (buttonFont != null) buffer64Mbutton.setFont(buttonFont);
-    group12.add(buffer64Mbutton);
-//  panel11.add(buffer64Mbutton); // currently disabled: too big
+  Report the summary of one pass from repeated cycles, with the given name as
+  a prefix.  Speeds are in bytes per second, and the confidence interval is
+  also given as plus or minus a percent of the mean.
+*/
+  static void reportRepeat(String name, double[] speeds, int count)
+  {
+    double[] summary = summarizeSpeeds(speeds, count); // statistics
+
+    putResult(name + ".samples", String.valueOf((int) summary[0]));
+    putResult(name + ".mean", formatResult(summary[1]));
+    putResult(name + ".stddev", formatResult(summary[2]));
+    putResult(name + ".min", formatResult(summary[3]));
+    putResult(name + ".max", formatResult(summary[4]));
+    if (summary[0] > 1)           // need two samples for an interval
+    {
+      putResult(name + ".ci95.low", formatResult(Math.max(0.0,
+        (summary[1] - summary[6])))); // speeds are never negative
+      putResult(name + ".ci95.high", formatResult(summary[1] + summary[6]));
+      putResult(name + ".ci95.percent", formatPointOne.format(summary[5]));
+    }
+  }
 
-    buffer128Mbutton = new JRadioButton("128 MB");
-    if (buttonFont != null) buffer128Mbutton.setFont(buttonFont);
-    group12.add(buffer128Mbutton);
-//  panel11.add(buffer128Mbutton); // currently disabled: too big
 
-    buffer256Mbutton = new JRadioButton("256 MB");
-    if (buttonFont != null) buffer256Mbutton.setFont(buttonFont);
-    group12.add(buffer256Mbutton);
-//  panel11.add(buffer256Mbutton); // currently disabled: too big
+/*
+  reportSeries() method
 
-    buffer512Mbutton = new JRadioButton("512 MB");
-    if (buttonFont != null) buffer512Mbutton.setFont(buttonFont);
-    group12.add(buffer512Mbutton);
-//  panel11.add(buffer512Mbutton); // currently disabled: too big
+  At the end of a pass, write the speed for each interval to the CSV file (if
+  any), then look for a cliff: the point where the average speed after is the
+  most below the average speed before.  Report the cliff if the drop is big
+  enough.  Prefix sums make this one quick loop, even for long passes.
+*/
+  static void reportSeries(String name)
+  {
+    long afterBytes, afterClock;  // bytes and time after possible cliff
+    double afterSpeed, beforeSpeed; // average speeds for possible cliff
+    int best;                     // index of biggest drop, or negative
+    double bestRatio;             // after/before speed for biggest drop
+    long beforeBytes, beforeClock; // bytes and time before possible cliff
+    int i;                        // index variable
+    int last = seriesCount - 1;   // index of final interval end
+    long span;                    // nanoseconds in one interval
 
-    panel01.add(panel11);
-    panel01.add(Box.createVerticalStrut(10)); // space between panels
+    if ((csvWriter != null) && (quietFlag == false)) // save all intervals
+    {
+      int size = (modeType != MODE_SEQUENTIAL) ? blockSize : bufferSize;
+      for (i = 1; i <= last; i ++)
+      {
+        span = seriesClock[i] - seriesClock[i - 1];
+        csvWriter.println(ENGINE_CHOICES[engineType] + "," + name + ","
+          + size + "," + ((seriesClock[i] - seriesClock[0]) / 1e9) + ","
+          + seriesBytes[i] + "," + ((span > 0) ? String.valueOf(Math.round(
+          (seriesBytes[i] - seriesBytes[i - 1]) * 1e9 / span)) : "NaN"));
+      }
+    }
 
-    /* Options for changing the total size of all temporary files.  Five
-    choices look best, and one should be pre-selected. */
+    /* Split the intervals at each possible point, with enough time on both
+    sides. */
 
-    JPanel panel21 = new JPanel();
-    panel21.setBorder(BorderFactory.createTitledBorder(null,
-      " Temporary File Size ", TitledBorder.DEFAULT_JUSTIFICATION,
-      TitledBorder.DEFAULT_POSITION, buttonFont));
-    panel21.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 0));
-//  panel21.setLayout(new GridLayout(0, 5)); // if more than 6 choices
-    panel21.setToolTipText("Total number of bytes to write, then read.");
+    best = -1;                    // no cliff found yet
+    bestRatio = 1.0 - (CLIFF_DROP / 100.0); // must be at least this much drop
+    for (i = 1; i < last; i ++)
+    {
+      beforeBytes = seriesBytes[i] - seriesBytes[0];
+      beforeClock = seriesClock[i] - seriesClock[0];
+      afterBytes = seriesBytes[last] - seriesBytes[i];
+      afterClock = seriesClock[last] - seriesClock[i];
+      if ((beforeBytes <= 0)      // can't calculate speeds here
+        || (beforeClock < (1000000000L * CLIFF_SECONDS))
+        || (afterClock < (1000000000L * CLIFF_SECONDS)))
+      {
+        continue;                 // not enough time before or after
+      }
+      beforeSpeed = beforeBytes * 1e9 / beforeClock;
+      afterSpeed = afterBytes * 1e9 / afterClock;
+      if ((afterSpeed / beforeSpeed) <= bestRatio) // biggest drop so far?
+      {
+        best = i;
+        bestRatio = afterSpeed / beforeSpeed;
+      }
+    }
+    if (best >= 0)                // did we find a cliff?
+    {
+      putResult(name + ".cliff.bytes", String.valueOf(seriesBytes[best]));
+      putResult(name + ".cliff.seconds", String.valueOf((seriesClock[best]
+        - seriesClock[0]) / 1e9));
+      putResult(name + ".cliff.before.speed", formatResult((seriesBytes[best]
+        - seriesBytes[0]) * 1e9 / (seriesClock[best] - seriesClock[0])));
+      putResult(name + ".cliff.after.speed", formatResult((seriesBytes[last]
+        - seriesBytes[best]) * 1e9 / (seriesClock[last]
+        - seriesClock[best])));
+    }
+  }
+
+
+/*
+  runCommand() method
+
+  Run a system command and wait for it to finish.  Return the standard output
+  as a string if the command was successful, or null if it failed.
+*/
+  static String runCommand(String[] command)
+  {
+    StringBuffer buffer;          // for creating complete text strings
+    int ch;                       // one character from command output
+    InputStream inp;              // standard output from command
+    Process process;              // running system command
+
+    buffer = new StringBuffer();  // faster than String for appends
+    try
+    {
+      process = new ProcessBuilder(command).redirectErrorStream(true).start();
+      inp = process.getInputStream(); // read all output, or command may hang
+      while ((ch = inp.read()) >= 0)
+        buffer.append((char) ch);
+      inp.close();
+      if (process.waitFor() != 0) // did command report an error?
+        return(null);
+    }
+    catch (IOException ioe) { return(null); } // command not found, etc
+    catch (InterruptedException ie) { return(null); }
+    return(buffer.toString());    // output from successful command
+  }
+
+
+/*
+  runCycle() method
+
+  Do one complete cycle of writing, reading, and deleting the temporary files
+  with the current I/O engine.  The work is done by writeFiles(), readFiles(),
+  and randomFiles().
+*/
+  static void runCycle(boolean keepFiles)
+  {
+    int count;                    // number of worker threads, all passes
+    int i, k;                     // index variables
+    java.util.Random random;      // pseudo-random data for patterns
+
+    /* Create a data buffer of the correct size, as chosen by the user.  Small
+    buffer sizes can cause excessive system overhead, and must be big enough to
+    guarantee an error if the disk is full: some file systems store very small
+    files inside the directory structure, around 728 bytes or less for NTFS. */
+
+    bufferAlign = 1;              // byte streams don't need alignment
+    if (engineType == ENGINE_DIRECT) // direct I/O is aligned to blocks
+    {
+      bufferAlign = findBlockSize(); // block size for this file system
+      if (((bufferSize % bufferAlign) != 0) // must be whole number of blocks
+        || ((modeType != MODE_SEQUENTIAL)
+        && ((blockSize % bufferAlign) != 0)))
+      {
+        putError("Direct I/O needs buffer and block sizes that are a"
+          + " multiple of " + formatComma.format(bufferAlign) + " bytes.");
+        return;                   // skip this engine
+      }
+    }
+    if (verifyFlag && (((bufferSize % VERIFY_BLOCK) != 0)
+      || ((modeType != MODE_SEQUENTIAL)
+      && ((blockSize % VERIFY_BLOCK) != 0))))
+    {
+      putError("Verifying data needs buffer and block sizes that are a"
+        + " multiple of " + formatComma.format(VERIFY_BLOCK) + " bytes.");
+      return;                     // skip this engine
+    }
+
+    count = (modeType == MODE_MIXED) ? (2 * threadCount) : threadCount;
+                                  // mixed tests have separate readers
+    workerBlocks = new ByteBuffer[count]; // no random buffers yet
+    workerBuffers = new ByteBuffer[count]; // one buffer per thread
+    workerPools = new ByteBuffer[count][]; // rotating write buffers
+    workerQueues = new DriveSpeed1Queue[count]; // only for async engine
+    workerLatency = new DriveSpeed1Latency[count]; // request times
+    for (k = 0; k < count; k ++)
+      workerLatency[k] = new DriveSpeed1Latency(); // before any pass begins
+    try                           // allocate the data buffer(s)
+    {
+      random = new java.util.Random(); // different data for each test
+      verifySeed = random.nextLong(); // run number for block headers
+      markFlag = verifyFlag || (patternType != PATTERN_ZEROS); // unique
+      for (k = 0; k < count; k ++)
+      {
+        workerPools[k] = new ByteBuffer[(patternType == PATTERN_ZEROS) ? 1
+          : Math.max(1, Math.min(POOL_COUNT, (POOL_BYTES / bufferSize)))];
+        for (i = 0; i < workerPools[k].length; i ++)
+        {
+          workerPools[k][i] = allocateBuffer(bufferSize);
+          fillPattern(workerPools[k][i], random); // before timing starts
+        }
+        workerBuffers[k] = workerPools[k][0]; // first buffer also for reading
+        if (modeType != MODE_SEQUENTIAL) // random blocks have own buffer
+        {
+          workerBlocks[k] = allocateBuffer(blockSize);
+          fillPattern(workerBlocks[k], random);
+        }
+        if (engineType == ENGINE_ASYNC) // requests have their own buffers
+        {
+          workerQueues[k] = new DriveSpeed1Queue(asyncDepth,
+            ((modeType != MODE_SEQUENTIAL) ? Math.max(bufferSize, blockSize)
+            : bufferSize), workerLatency[k], driveBytes[driveIndex(k)]);
+          for (DriveSpeed1Request request : workerQueues[k].idle)
+            fillPattern(request.buffer, random); // written without copying
+        }
+      }
+    }
+    catch (OutOfMemoryError oome) // some size options can be too big
+    {
+      workerBlocks = workerBuffers = null; // release what we did allocate
+      workerPools = null;
+      workerQueues = null;
+      putError("Not enough memory for " + threadCount
+        + " data buffer(s) of " + formatComma.format(bufferSize)
+        + " bytes.\nChoose a smaller buffer or increase the Java heap size with\nthe -Xmx option on the command line"
+        + (((engineType == ENGINE_STREAM) || (engineType == ENGINE_HEAP)
+        || (engineType == ENGINE_RAF)) ? "."
+        : ", or direct memory with -XX:MaxDirectMemorySize."
+        + ((engineType == ENGINE_ASYNC) ? "  Each request in flight has its"
+        + " own buffer." : "")));
+      return;                     // skip this engine
+    }
+
+    totalBytesWritten = 0;        // no bytes written yet
+
+    /* Files kept by an earlier test are read without writing anything, after
+    checking that they are still the same. */
+
+    if (reuseFlag && (readManifest() == false))
+    {
+      cancelFlag = true;          // skip all tests, error already reported
+      return;
+    }
+
+    /* Create as many temporary files as necessary to get the total number of
+    bytes selected by the user, and calculate the final average write speed.
+    A random test then writes blocks at random positions in those files. */
+
+    if (reuseFlag == false)       // only if we aren't reading kept files
+    {
+      totalFilesCreated = writeFiles(); // write all temporary files
+      highestFileCreated = Math.max(highestFileCreated, totalFilesCreated);
+      if (cancelFlag == false)    // only if the user hasn't cancelled us
+      {
+        totalBytesWritten = bytesAllFiles.sum(); // remember total bytes
+        endPass("write");         // final average write speed
+      }
+      if ((cancelFlag == false) && keepFlag) // save before random writes
+        writeManifest();
+      if ((cancelFlag == false) && (modeType == MODE_RANDOM))
+        randomFiles(true);        // random writes
+    }
+
+    /* Ask the system to drop its cached copy of our files, so that reading
+    comes from the drive.  This isn't necessary for direct I/O. */
+
+    if ((cancelFlag == false) && evictFlag && (engineType != ENGINE_DIRECT))
+    {
+      if (consoleFlag == false)   // only if we have a graphical interface
+        progressBar.setString("Clearing disk cache...");
+      evictCache(totalFilesCreated); // force files to drive, then drop cache
+    }
+
+    /* Java has no standard way of invalidating disk caches in hardware or the
+    underlying operating system.  If the amount of data written is smaller than
+    the physical memory (RAM) on the computer, data that we read may be fetched
+    from the cache and not from the drive.  For removable media, one possible
+    solution is a pop-up dialog that asks the user to remove (eject) and then
+    reinsert the media. */
+
+    if ((cancelFlag == false) && promptFlag && (consoleFlag == false))
+    {
+      JOptionPane.showMessageDialog(mainFrame,
+        ("If your drive is on removable media, then:\n"
+        + "1. Remove (eject) the drive normally;\n"
+        + "2. Reinsert the drive; and\n"
+        + "3. Click the OK button here."));
+    }
+
+    /* Read the files that we just created, and calculate the final average
+    read speed.  A random test reads blocks at random positions instead, and a
+    mixed test reads and writes random blocks at the same time. */
+
+    if ((cancelFlag == false) && (modeType == MODE_MIXED))
+      mixedFiles();               // random reads and writes together
+    else if ((cancelFlag == false) && (modeType == MODE_RANDOM))
+      randomFiles(false);         // random reads
+    else if (cancelFlag == false) // only if the user hasn't cancelled us
+    {
+      readFiles();                // read all temporary files
+      if (cancelFlag == false)    // only if the user hasn't cancelled us
+        endPass("read");          // final average read speed
+    }
+
+    /* Delete our temporary files, unless the caller will use them again.  We
+    ignore most errors here. */
+
+    if ((keepFiles == false) || cancelFlag)
+      deleteFiles();
+
+  } // end of runCycle() method
+
+
+/*
+  runDepths() method
+
+  Do the write/read cycle (or a sweep of sizes) once for each number of
+  requests in flight chosen by the user, with the async engine.  Temporary
+  files are kept until the last depth.  Then report a table of depth versus
+  speed, if there is more than one depth and no sweep.
+*/
+  static void runDepths()
+  {
+    int count;                    // number of depths actually tested
+    int i;                        // index variable
+    double[] readSpeeds, writeSpeeds; // bytes per second for each depth
+
+    readSpeeds = new double[depthList.length];
+    writeSpeeds = new double[depthList.length];
+    for (count = 0; count < depthList.length; count ++)
+    {
+      asyncDepth = depthList[count]; // requests in flight for this cycle
+      putResult("depth", String.valueOf(asyncDepth));
+      lastReadSpeed = lastWriteSpeed = -1.0; // no speeds for this depth yet
+      if (sweepMax > 0)           // try many sizes with this depth
+        runSweep();
+      else                        // keep files, except after last depth
+        runRepeat(count < (depthList.length - 1));
+      readSpeeds[count] = lastReadSpeed;
+      writeSpeeds[count] = lastWriteSpeed;
+      if (cancelFlag)             // stop early if the user cancelled us
+      {
+        count ++;                 // this depth may have some speeds
+        break;                    // exit early from <for> loop
+      }
+    }
+
+    /* Report the table of speeds, in megabytes per second.  A sweep already
+    has its own table for each depth. */
+
+    if ((depthList.length < 2) || (sweepMax > 0))
+      return;                     // nothing to compare
+    putResult("depth.table", "depth write.MB/s read.MB/s");
+    for (i = 0; i < count; i ++)
+      putResult("depth.table", (depthList[i] + " "
+        + formatMegabytes(writeSpeeds[i]) + " "
+        + formatMegabytes(readSpeeds[i])));
+  }
+
+
+/*
+  runFiles() method
+
+  Do the "files" test: create, stat, read, and delete many small files, with
+  one task for each folder, and report the operations per second for each
+  step.  After a cancel or an error, the remaining files are still deleted,
+  without reporting a speed.
+*/
+  static void runFiles()
+  {
+    ExecutorService executor;     // runs one task for each folder
+    int folder;                   // folder number, from zero
+    java.util.List<Future<?>> futures; // tasks for current step
+    String name;                  // name of current step
+    long nanos;                   // nanoseconds for current step
+    int k;                        // index variable
+    File top;                     // top folder for all small files
+    int task;                     // current step, as a worker task
+
+    putResult("files.count", String.valueOf(filesCount));
+    putResult("files.bytes", String.valueOf(filesBytes));
+    putResult("files.fanout", String.valueOf(fanoutCount));
+    fileData = new byte[filesBytes]; // same data in each small file
+    fillPattern(ByteBuffer.wrap(fileData), new java.util.Random());
+    for (k = 0; k < driveList.length; k ++) // each drive folder
+    {
+      top = new File(driveList[k], FILES_FOLDER);
+      if ((top.mkdir() == false) && (top.isDirectory() == false))
+      {
+        putError("Can't create folder " + top.getPath());
+        return;
+      }
+    }
+    executor = createExecutor();  // virtual threads or a pool
+    futures = new java.util.ArrayList<Future<?>>();
+    for (task = WORKER_FILES_CREATE; task <= WORKER_FILES_DELETE; task ++)
+    {
+      name = FILES_NAMES[task - WORKER_FILES_CREATE];
+      if ((task != WORKER_FILES_DELETE) // always clean up after ourselves
+        && (cancelFlag || (filesErrors.get() > 0)))
+      {
+        continue;                 // skip to delete step
+      }
+      if (consoleFlag == false)   // only if we have a graphical interface
+        progressBar.setString("Files: " + name + "...");
+      filesDone.reset();          // no files done yet for this step
+      filesErrors.set(0);         // no errors yet for this step
+      futures.clear();
+      nanos = System.nanoTime();  // starting clock for this step
+      for (folder = 0; folder < fanoutCount; folder ++)
+        futures.add(executor.submit(new DriveSpeed1Worker(task, folder)));
+      for (Future<?> future : futures) // wait for all tasks to finish
+      {
+        try { future.get(); }
+        catch (Exception e) { /* errors were reported by tasks */ }
+      }
+      nanos = System.nanoTime() - nanos; // elapsed time for this step
+      putResult(name + ".files", String.valueOf(filesDone.sum()));
+      putResult(name + ".ms", formatResult(nanos / 1e6));
+      putResult(name + ".ops", formatResult((nanos > 0)
+        ? (filesDone.sum() * 1e9 / nanos) : -1.0)); // operations per second
+    }
+    executor.shutdown();          // no more tasks
+    for (k = 0; k < driveList.length; k ++) // should be empty now
+      new File(driveList[k], FILES_FOLDER).delete(); // ignore errors
+    fileData = null;              // release memory
+  }
+
+
+/*
+  runRepeat() method
+
+  Do the write/read cycle many times with the same options, if the user asked
+  for that, and summarize the speeds of each pass: mean, standard deviation,
+  minimum, maximum, and 95% confidence interval for the mean.  Temporary files
+  are kept from one cycle to the next.  Repeating stops early once both
+  confidence intervals are narrow enough (the -ci option).
+*/
+  static void runRepeat(boolean keepFiles)
+  {
+    int count;                    // number of cycles actually done
+    int limit;                    // most cycles that we will do
+    double[] readSpeeds, writeSpeeds; // bytes per second for each cycle
+
+    limit = (repeatCount > 0) ? repeatCount
+      : ((ciPercent > 0.0) ? DEFAULT_REPEAT : 1);
+    if (limit < 2)                // only one cycle, nothing to summarize
+    {
+      runCycle(keepFiles);
+      return;
+    }
+    readSpeeds = new double[limit];
+    writeSpeeds = new double[limit];
+    count = 0;
+    while ((cancelFlag == false) && (count < limit))
+    {
+      putResult("repeat", String.valueOf(count + 1));
+      lastReadSpeed = lastWriteSpeed = -1.0; // no speeds for this cycle yet
+      runCycle(true);             // keep files for the next cycle
+      readSpeeds[count] = lastReadSpeed;
+      writeSpeeds[count] = lastWriteSpeed;
+      count ++;
+      if ((lastReadSpeed < 0.0) && (lastWriteSpeed < 0.0))
+        break;                    // an error, or much too fast to measure
+      if ((ciPercent > 0.0) && (count >= REPEAT_MIN_CI)
+        && (summarizeSpeeds(writeSpeeds, count)[5] <= ciPercent)
+        && (summarizeSpeeds(readSpeeds, count)[5] <= ciPercent))
+      {
+        break;                    // mean speeds are known well enough
+      }
+    }
+    if ((keepFiles == false) || cancelFlag)
+      deleteFiles();
+    if (cancelFlag)               // no summary if the user cancelled us
+      return;
+
+    /* Report the summary for each pass, and show the mean speeds in the
+    graphical interface instead of the speeds from the last cycle. */
+
+    putResult("repeat.cycles", String.valueOf(count));
+    reportRepeat("repeat.write", writeSpeeds, count);
+    reportRepeat("repeat.read", readSpeeds, count);
+    if (consoleFlag == false)     // only if we have a graphical interface
+    {
+      double read = summarizeSpeeds(readSpeeds, count)[1];
+      double write = summarizeSpeeds(writeSpeeds, count)[1];
+      readSpeedText.setText((read < 0.0) ? TOO_FAST_TEXT : formatSpeed(read));
+      writeSpeedText.setText((write < 0.0) ? TOO_FAST_TEXT
+        : formatSpeed(write));
+    }
+  }
+
+
+/*
+  runSweep() method
+
+  Do the write/read cycle once for each power of two from the smallest to the
+  largest size chosen by the user, with the current I/O engine.  Sequential
+  tests change the data buffer size, and random tests change the block size.
+  Temporary files are kept until the last size.  Warmup cycles, if any, run
+  before each measured cycle and aren't reported.  Then report a table of size
+  versus speed, and the smallest size that reaches most of the best speed.
+*/
+  static void runSweep()
+  {
+    int count;                    // number of sizes actually tested
+    int i, k;                     // index variables
+    int oldSize;                  // user's buffer or block size, restored
+    double[] readSpeeds, writeSpeeds; // bytes per second for each size
+    int size;                     // current buffer or block size
+    int[] sizes;                  // all sizes in the sweep
+
+    /* Make a list of sizes: powers of two times the smallest size, with the
+    largest size always at the end. */
+
+    count = 1;                    // smallest size is always there
+    for (size = sweepMin; size < sweepMax; count ++)
+      size = (size > (sweepMax / 2)) ? sweepMax : (size * 2);
+    sizes = new int[count];
+    size = sweepMin;
+    for (i = 0; i < count; i ++)
+    {
+      sizes[i] = size;
+      size = (size > (sweepMax / 2)) ? sweepMax : (size * 2);
+    }
+    if ((modeType != MODE_SEQUENTIAL) // random blocks have their own limits
+      && ((sweepMin < MIN_BLOCK_SIZE) || (sweepMax > MAX_BLOCK_SIZE)))
+    {
+      putError("Random block sizes must be from "
+        + formatComma.format(MIN_BLOCK_SIZE) + " to "
+        + formatComma.format(MAX_BLOCK_SIZE) + " bytes.");
+      return;                     // skip this engine
+    }
+
+    /* Do one complete cycle for each size. */
+
+    oldSize = (modeType != MODE_SEQUENTIAL) ? blockSize : bufferSize;
+    readSpeeds = new double[count];
+    writeSpeeds = new double[count];
+    for (i = 0; i < count; i ++)
+    {
+      if (modeType != MODE_SEQUENTIAL) blockSize = sizes[i];
+      else bufferSize = sizes[i];
+      putResult("sweep.bytes", String.valueOf(sizes[i]));
+      quietFlag = true;           // don't report results from warmups
+      for (k = 0; (cancelFlag == false) && (k < warmupCount); k ++)
+        runCycle(true);           // same as measured cycle, keep files
+      quietFlag = false;          // report measured cycle
+      lastReadSpeed = lastWriteSpeed = -1.0; // no speeds for this size yet
+      runCycle(i < (count - 1));  // keep files, except after last size
+      readSpeeds[i] = lastReadSpeed;
+      writeSpeeds[i] = lastWriteSpeed;
+      if (cancelFlag)             // stop early if the user cancelled us
+        break;                    // exit early from <for> loop
+    }
+    if (modeType != MODE_SEQUENTIAL) blockSize = oldSize;
+    else bufferSize = oldSize;
+    if (cancelFlag)               // no table if the user cancelled us
+      return;
+
+    /* Report a table in megabytes per second, which is easier to read than
+    bytes per second, and the knee for writing and for reading. */
+
+    putResult("sweep.table", "bytes write.MB/s read.MB/s");
+    for (i = 0; i < count; i ++)
+      putResult("sweep.table", (sizes[i] + " "
+        + formatMegabytes(writeSpeeds[i]) + " "
+        + formatMegabytes(readSpeeds[i])));
+    putResult("sweep.write.knee.bytes", findKnee(sizes, writeSpeeds));
+    putResult("sweep.read.knee.bytes", findKnee(sizes, readSpeeds));
+    if (consoleFlag == false)     // only if we have a graphical interface
+    {
+      JOptionPane.showMessageDialog(mainFrame, new DriveSpeed1Graph(sizes,
+        writeSpeeds, readSpeeds), ("Sweep for " + ENGINE_CHOICES[engineType]
+        + " engine"), JOptionPane.PLAIN_MESSAGE);
+    }
+  }
+
+
+/*
+  runWorkers() method
+
+  Start one worker thread for each of <threadCount>, give each the same task,
+  and wait for all of them to finish.  The byte counter is shared.  A mixed
+  test has twice as many threads: writers, then readers.
+*/
+  static void runWorkers(int task)
+  {
+    int i;                        // index variable
+    Thread[] threads;             // worker threads
+
+    threads = new Thread[(task == WORKER_MIXED) ? (2 * threadCount)
+      : threadCount];             // mixed tests have separate readers
+    for (i = 0; i < threads.length; i ++) // create and start each thread
+    {
+      threads[i] = new Thread(new DriveSpeed1Worker(task, i),
+        ("workerThread" + i));
+      threads[i].start();         // same priority as our own thread
+    }
+    for (i = 0; i < threads.length; i ++) // wait for each thread to finish
+    {
+      try { threads[i].join(); }
+      catch (InterruptedException ie) { i --; } // try again, must wait
+    }
+  }
+
+
+/*
+  saveResults() method
+
+  Save the results of this test as one line at the end of the results file,
+  after comparing with the baseline if the user asked for that.  We describe
+  the computer first, so that results from different places can be kept in the
+  same file.
+*/
+  static void saveResults()
+  {
+    java.util.ArrayList<String> fields; // all results for this test
+    String host;                  // name of this computer
+    int k;                        // index variable
+    PrintWriter writer;           // for appending to results file
+
+    fields = new java.util.ArrayList<String>();
+    fields.add("time=" + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(
+      new java.util.Date()));     // local date and time, for people
+    try { host = java.net.InetAddress.getLocalHost().getHostName(); }
+    catch (IOException ioe) { host = "unknown"; }
+    fields.add("host=" + host);
+    fields.add("java=" + System.getProperty("java.version") + " "
+      + System.getProperty("java.vendor"));
+    fields.add("os=" + System.getProperty("os.name") + " "
+      + System.getProperty("os.version") + " "
+      + System.getProperty("os.arch"));
+    for (k = 0; k < driveList.length; k ++) // file system for each folder
+    {
+      String type;                // file system type and device name
+      try
+      {
+        FileStore store = Files.getFileStore(driveList[k].toPath());
+        type = store.type() + " " + store.name();
+      }
+      catch (IOException ioe) { type = "unknown"; }
+      fields.add("filesystem=" + type.replace('\t', ' '));
+    }
+    fields.addAll(resultsList);   // then everything reported for this test
+    resultsList = null;           // don't save comparison with baseline
 
-    ButtonGroup group22 = new ButtonGroup();
+    if (comparePercent > 0)       // does the user want a comparison?
+    {
+      String[] record = fields.toArray(new String[0]);
+      String[] baseline = findBaseline(record);
+      if (baseline != null)
+        compareResults(baseline, record);
+      else
+        putResult("compare.baseline", "none");
+    }
 
-    file1Mbutton = new JRadioButton("1 MB"); // megabyte (10**6)
-    if (buttonFont != null) file1Mbutton.setFont(buttonFont);
-    group22.add(file1Mbutton);
-//  panel21.add(file1Mbutton);    // currently disabled: too small
+    try                           // append, never replace
+    {
+      writer = new PrintWriter(new BufferedWriter(new FileWriter(
+        resultsFilename, true)));
+      writer.println(String.join("\t", fields));
+      writer.close();             // errors are remembered, not thrown
+      if (writer.checkError())
+        putError("Can't write results file " + resultsFilename);
+    }
+    catch (IOException ioe)
+    {
+      putError("Can't open results file " + resultsFilename + ": "
+        + ioe.getMessage());
+    }
+  }
 
-    file10Mbutton = new JRadioButton("10 MB");
-    if (buttonFont != null) file10Mbutton.setFont(buttonFont);
-    group22.add(file10Mbutton);
-//  panel21.add(file10Mbutton);   // currently disabled: too small
 
-    file100Mbutton = new JRadioButton("100 MB");
-    if (buttonFont != null) file100Mbutton.setFont(buttonFont);
-    group22.add(file100Mbutton);
-//  panel21.add(file100Mbutton);  // currently disabled: too small
+/*
+  seriesAdd() method
 
-    file1Gbutton = new JRadioButton("1 GB"); // gigabyte (10**9)
-    if (buttonFont != null) file1Gbutton.setFont(buttonFont);
-    group22.add(file1Gbutton);
-    panel21.add(file1Gbutton);
+  Add the byte count and clock time at the end of one interval to the series
+  for the current pass.  The arrays double in size when full, so a long pass
+  costs two longs per interval, and nothing else.  Intervals with no elapsed
+  time are merged with the previous entry.
+*/
+  static void seriesAdd(long done, long clock)
+  {
+    if ((seriesCount > 0) && (clock <= seriesClock[seriesCount - 1]))
+    {                             // no time since previous entry
+      seriesBytes[seriesCount - 1] = done; // replace previous byte count
+      return;
+    }
+    if (seriesCount >= seriesBytes.length) // arrays are full
+    {
+      seriesBytes = java.util.Arrays.copyOf(seriesBytes, (2 * seriesCount));
+      seriesClock = java.util.Arrays.copyOf(seriesClock, (2 * seriesCount));
+    }
+    seriesBytes[seriesCount] = done;
+    seriesClock[seriesCount] = clock;
+    seriesCount ++;
+  }
 
-    file10Gbutton = new JRadioButton("10 GB");
-    if (buttonFont != null) file10Gbutton.setFont(buttonFont);
-    group22.add(file10Gbutton);
-    panel21.add(file10Gbutton);
 
-    file100Gbutton = new JRadioButton("100 GB", true);
-    if (buttonFont != null) file100Gbutton.setFont(buttonFont);
-    group22.add(file100Gbutton);
-    panel21.add(file100Gbutton);
+/*
+  showHelp() method
 
-    file1Tbutton = new JRadioButton("1 TB"); // terabyte (10**12)
-    if (buttonFont != null) file1Tbutton.setFont(buttonFont);
-    group22.add(file1Tbutton);
-    panel21.add(file1Tbutton);
+  Show the help summary.  This is a UNIX standard and is expected for all
+  console applications, even very simple ones.
+*/
+  static void showHelp()
+  {
+    System.err.println();
+    System.err.println(PROGRAM_TITLE);
+    System.err.println();
+    System.err.println("This is a graphical application.  You may give options on the command line:");
+    System.err.println();
+    System.err.println("  -? = -help = show summary of command-line syntax");
+    System.err.println("  -bench = compare Java I/O engines and buffer sizes, with warmup (console)");
+    System.err.println("  -block=# = block size for random tests, from 4K to 1M; default is 4K");
+    System.err.println("  -buffer=# = data buffer size in bytes, with suffix K, M, or G; default is");
+    System.err.println("      256K; example: -buffer=1m");
+    System.err.println("  -c = console application, no graphical interface; results are written on");
+    System.err.println("      standard output as name=value pairs");
+    System.err.println("  -ci=# = repeat until 95% confidence interval is within # percent of mean;");
+    System.err.println("      at most " + DEFAULT_REPEAT + " cycles unless -repeat is given; example: -ci=2");
+    System.err.println("  -compare=# = compare speeds with baseline in results file, and flag any");
+    System.err.println("      that are more than # percent lower; example: -compare=5");
+    System.err.println("  -compress=# = percent zeros in each 4K for compress pattern; default is "
+      + DEFAULT_COMPRESS);
+    System.err.println("  -csv=name = save speed for each interval of each pass in CSV file");
+    System.err.println("  -depth=# = requests in flight for async engine; default is "
+      + DEFAULT_DEPTH + "; list to compare: -depth=1,4,16,64");
+    System.err.println("  -engine=name = I/O engine: stream (default), direct (bypass disk cache),");
+    System.err.println("      mapped (memory-mapped files), channel (FileChannel, native buffers),");
+    System.err.println("      heap (FileChannel, Java buffers), raf (RandomAccessFile), or async");
+    System.err.println("      (AsynchronousFileChannel, see -depth);");
+    System.err.println("      list to compare: -engine=stream,channel,mapped");
+    System.err.println("  -evict=on|off|all = clear disk cache for our files before reading; default is");
+    System.err.println("      off; \"all\" may drop the whole system cache if that fails (root only)");
+    System.err.println("  -fanout=# = folders for files mode; default is " + DEFAULT_FANOUT);
+    System.err.println("  -files=# = number of small files for files mode; default is " + DEFAULT_FILES);
+    System.err.println("  -filesize=# = bytes in each small file, with suffix K or M; default is 4K");
+    System.err.println("  -folder=name = writeable drive folder for temporary files (required by -c);");
+    System.err.println("      repeat to test several folders at the same time");
+    System.err.println("  -ignore=# = seconds to ignore at start and end of each pass; default is "
+      + IGNORE_DEFAULT + ";");
+    System.err.println("      zero for none");
+    System.err.println("  -interleave=# = files read at once by each thread, interleaved order; default");
+    System.err.println("      is " + DEFAULT_INTERLEAVE);
+    System.err.println("  -keep = don't delete temporary files, and write a manifest for -reuse; files");
+    System.err.println("      kept by an earlier test are deleted when new files are written");
+    System.err.println("  -mix=# = percent reads for mixed mode, or reads/writes; default is "
+      + DEFAULT_MIX + "; example: -mix=70/30");
+    System.err.println("  -mode=name = test mode: sequential (default), random (IOPS), files (small");
+    System.err.println("      files and metadata), or mixed (random reads and writes together)");
+    System.err.println("  -order=name = order for reading sequential files: forward (default), backward,");
+    System.err.println("      strided (see -stride), or interleaved (see -interleave)");
+    System.err.println("  -pattern=name = data pattern: zeros (default), random, or compress");
+    System.err.println("  -prealloc=name = before writing, set each file to its final size (size), or");
+    System.err.println("      also fill with zeros and sync (fill); default is none");
+    System.err.println("  -rate=# = pace writes at # bytes per second (suffix K, M, G) or #iops requests");
+    System.err.println("      per second, and time latency from schedule; example: -rate=200m; paces the");
+    System.err.println("      sequential or random write pass, not files created first for random or mixed;");
+    System.err.println("      with several folders, the rate is for each folder");
+    System.err.println("  -repeat=# = write/read cycles for each engine, with mean, standard deviation,");
+    System.err.println("      and 95% confidence interval of the speeds; default is 1");
+    System.err.println("  -reuse = read files kept by -keep, after checking manifest; no writing");
+    System.err.println("  -results=name = append options and results of each test to this file");
+    System.err.println("  -sample=# = milliseconds between speed samples, from 10 to 1000; default is "
+      + DEFAULT_SAMPLE);
+    System.err.println("  -stride=# = buffers skipped after each buffer read, strided order; default is "
+      + DEFAULT_STRIDE);
+    System.err.println("  -sweep=#:# = sweep buffer size (or random block size) by powers of two;");
+    System.err.println("      example: -sweep=4k:64m");
+    System.err.println("  -sync=none|close|# = force written data to drive (fsync) at close of each");
+    System.err.println("      file, or after every # bytes; default is none; example: -sync=16m");
+    System.err.println("  -threads=# = number of worker threads, each with its own files; default is 1");
+    System.err.println("  -time=# = maximum seconds for each random pass; default is "
+      + DEFAULT_TIME_LIMIT);
+    System.err.println("  -total=# = total bytes to write, all files, with suffix K, M, G, T, P, or E;");
+    System.err.println("      or -total=max to fill drive; default is 100G");
+    System.err.println("  -u# = font size for buttons, dialogs, etc; default is local system;");
+    System.err.println("      example: -u16");
+    System.err.println("  -w(#,#,#,#) = normal window position: left, top, width, height;");
+    System.err.println("      example: -w(50,50,700,500)");
+    System.err.println("  -verify = check block headers and CRC32C checksums when reading");
+    System.err.println("  -virtual=on|off = virtual threads for files mode, if Java has them; default");
+    System.err.println("      is on, otherwise a pool with the number of threads");
+    System.err.println("  -window=# = memory-mapped window size for mapped engine; default is 64M");
+    System.err.println("  -x = maximize application window; default is normal window");
+    System.err.println();
+    System.err.println(COPYRIGHT_NOTICE);
+//  System.err.println();
 
-    file10Tbutton = new JRadioButton("10 TB");
-    if (buttonFont != null) file10Tbutton.setFont(buttonFont);
-    group22.add(file10Tbutton);
-    panel21.add(file10Tbutton);
+  } // end of showHelp() method
 
-    file100Tbutton = new JRadioButton("100 TB");
-    if (buttonFont != null) file100Tbutton.setFont(buttonFont);
-    group22.add(file100Tbutton);
-//  panel21.add(file100Tbutton);  // currently disabled: too big
 
-    file1Pbutton = new JRadioButton("1 PB"); // petabyte (10**15)
-    if (buttonFont != null) file1Pbutton.setFont(buttonFont);
-    group22.add(file1Pbutton);
-//  panel21.add(file1Pbutton);    // currently disabled: too big
+/*
+  startErase() method
 
-    file10Pbutton = new JRadioButton("10 PB");
-    if (buttonFont != null) file10Pbutton.setFont(buttonFont);
-    group22.add(file10Pbutton);
-//  panel21.add(file10Pbutton);   // currently disabled: too big
+  Erase the disk drive.  This method should be called from a secondary thread,
+  not from the main thread that runs the GUI.  Options are checked here, then
+  runCycle() does the work once for each I/O engine, or runSweep() calls
+  runCycle() once for each size.
+*/
+  static void startErase()
+  {
+    int k;                        // index variable
+    long oldBytes;                // user's total bytes, for each folder
+    int oldThreads;               // user's threads, for each folder
 
-    file100Pbutton = new JRadioButton("100 PB");
-    if (buttonFont != null) file100Pbutton.setFont(buttonFont);
-    group22.add(file100Pbutton);
-//  panel21.add(file100Pbutton);  // currently disabled: too big
+    /* Check that we still have a valid drive folder for writing files. */
 
-    file1Ebutton = new JRadioButton("1 EB"); // exabyte (10**18)
-    if (buttonFont != null) file1Ebutton.setFont(buttonFont);
-    group22.add(file1Ebutton);
-//  panel21.add(file1Ebutton);    // currently disabled: too big
+    checkDriveFolder();           // get someone else to check the folder
+    if (driveSelection == null)   // if there was something wrong with folder
+      return;                     // our "Start" button now disabled by check
+    if (consoleFlag == false)     // graphical interface has options for us
+      getGuiOptions();            // buffer size, total bytes, etc
 
-    fileMaximumButton = new JRadioButton("maximum");
-    if (buttonFont != null) fileMaximumButton.setFont(buttonFont);
-    group22.add(fileMaximumButton);
-    panel21.add(fileMaximumButton);
+    /* Disable the "Start" button until we are done, and enable a "Cancel"
+    button in case our secondary thread runs for a long time and the user
+    panics. */
 
-    panel01.add(panel21);
-    panel01.add(Box.createVerticalStrut(10)); // space between panels
+    cancelFlag = false;           // but don't cancel unless user complains
+    deleteFlag = (keepFlag == false) && (reuseFlag == false);
+                                  // we should delete our temporary files
+    highestFileCreated = 0;       // no temporary files created yet
+    eraseState = ERASE_NONE;      // we are not reading or writing data
+    if (consoleFlag == false)     // only if we have a graphical interface
+    {
+      cancelButton.setEnabled(true); // enable button to cancel this processing
+      cancelButton.requestFocusInWindow(); // give keyboard focus to button
+      driveFolderButton.setEnabled(false); // disable "Drive Folder" button
+      detailText.setText("");     // clear previous details and results
+      progressBar.setString("");  // empty string, not built-in percent
+      progressBar.setValue(0);    // and clear any previous status value
+      readSpeedText.setText(NO_SPEED_TEXT); // clear previous read speed
+      startButton.setEnabled(false); // suspend "Start" until we are done
+      writeSpeedText.setText(NO_SPEED_TEXT); // clear previous write speed
+    }
+    resultsList = (resultsFilename != null) ? new java.util.ArrayList<String>()
+      : null;                     // collect results only if we save them
+    csvWriter = null;             // assume no CSV file for intervals
+    if (csvFilename != null)      // does the user want interval speeds?
+    {
+      try
+      {
+        csvWriter = new PrintWriter(new BufferedWriter(new FileWriter(
+          csvFilename)));         // replaces any previous file
+        csvWriter.println("engine,pass,buffer.bytes,seconds,bytes,speed");
+      }
+      catch (IOException ioe)     // report error, but continue testing
+      {
+        putError("Can't create CSV file " + csvFilename + ": "
+          + ioe.getMessage());
+      }
+    }
+    for (k = 0; k < driveList.length; k ++) // describe this test
+      putResult("folder", driveList[k].getPath());
+    putResult("buffer.bytes", String.valueOf(bufferSize));
+    if (sweepMax > 0)             // only if we try many sizes
+    {
+      putResult("sweep.min.bytes", String.valueOf(sweepMin));
+      putResult("sweep.max.bytes", String.valueOf(sweepMax));
+    }
+    putResult("total.bytes", String.valueOf(maxDataBytes));
+    putResult("mode", MODE_CHOICES[modeType]);
+    putResult("pattern", PATTERN_CHOICES[patternType]);
+    if (patternType == PATTERN_COMPRESS) // compressible has a percentage
+      putResult("pattern.zeros.percent", String.valueOf(compressPercent));
+    putResult("threads", String.valueOf(threadCount));
+    putResult("sync", ((syncBytes < 0) ? "close" : (syncBytes == 0)
+      ? "none" : String.valueOf(syncBytes))); // when data is forced
+    if ((modeType == MODE_RANDOM) || (modeType == MODE_MIXED))
+                                  // random tests have their own block size
+      putResult("block.bytes", String.valueOf(blockSize));
+    if ((modeType == MODE_SEQUENTIAL) && (orderType != ORDER_FORWARD))
+    {
+      putResult("read.order", ORDER_CHOICES[orderType]);
+      if (orderType == ORDER_STRIDED) // only if skipping buffers
+        putResult("read.stride", String.valueOf(strideCount));
+      else if (orderType == ORDER_INTERLEAVED) // only if many files at once
+        putResult("read.interleave", String.valueOf(interleaveCount));
+    }
+    if (verifyFlag)               // only if we check data when reading
+      putResult("verify", "on");
+    if (keepFlag)                 // only if files are kept for later
+      putResult("keep", "on");
+    if (reuseFlag)                // only if files were kept from before
+      putResult("reuse", "on");
+    if (rateTarget > 0.0)         // only if writes are paced, each folder
+      putResult("rate.folder", (formatResult(rateTarget)
+        + (rateIopsFlag ? "iops" : "")));
+
+    /* Each drive folder gets its own threads and its own share of the bytes.
+    Worker threads go to the folders in turn, so files do too. */
+
+    oldBytes = maxDataBytes;      // restored when we are done
+    oldThreads = threadCount;
+    if (driveList.length > 1)     // only if testing folders together
+    {
+      putResult("folders", String.valueOf(driveList.length));
+      maxDataBytes = (maxDataBytes > (MAX_FILE_SIZE / driveList.length))
+        ? MAX_FILE_SIZE : (maxDataBytes * driveList.length);
+      threadCount *= driveList.length;
+    }
+    driveBytes = new LongAdder[driveList.length]; // bytes for each folder
+    driveClock = new long[driveList.length]; // ending clock for each folder
+    for (k = 0; k < driveList.length; k ++)
+      driveBytes[k] = new LongAdder();
 
-    /* Miscellaneous options.  Maybe these should be hidden from the user. */
+    /* The "files" test doesn't depend on the I/O engine. */
 
-    JPanel panel31 = new JPanel();
-    panel31.setBorder(BorderFactory.createTitledBorder(null, " Options ",
-      TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION,
-      buttonFont));
-    panel31.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 0));
+    if (modeType == MODE_FILES)   // many small files, metadata speed
+      runFiles();
 
-    JPanel panel32 = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-    ignoreCheckbox = new JCheckBox("ignore first and last ", true);
-    if (buttonFont != null) ignoreCheckbox.setFont(buttonFont);
-    ignoreCheckbox.setToolTipText("Delay before calculating averages.");
-    panel32.add(ignoreCheckbox);
-    ignoreDialog = new JComboBox(IGNORE_CHOICES);
-    ignoreDialog.setEditable(false); // user must select one of our choices
-    if (buttonFont != null) ignoreDialog.setFont(buttonFont);
-    ignoreDialog.setSelectedItem(IGNORE_DEFAULT);
-    ignoreDialog.addActionListener(action); // do last so don't fire early
-    panel32.add(ignoreDialog);
-    if (mswinFlag) panel32.add(Box.createHorizontalStrut(4));
-                                  // adjust Sun/Oracle Java 1.4 to 7 on Windows
-    JLabel label33 = new JLabel(" seconds");
-    if (buttonFont != null) label33.setFont(buttonFont);
-    label33.setToolTipText("Delay before calculating averages.");
-    panel32.add(label33);
-    panel31.add(panel32);
+    /* Do a complete write/read cycle for each I/O engine, so that they can be
+    compared on the same drive, one after the other. */
 
-    promptCheckbox = new JCheckBox("prompt before reading", false);
-    if (buttonFont != null) promptCheckbox.setFont(buttonFont);
-    promptCheckbox.setToolTipText("Select for removable media.");
-    panel31.add(promptCheckbox);
+    for (k = 0; (cancelFlag == false) && (modeType != MODE_FILES)
+      && (k < engineList.length); k ++)
+    {
+      engineType = engineList[k]; // current I/O engine
+      putResult("engine", ENGINE_CHOICES[engineType]);
+      if (engineType == ENGINE_MAPPED) // mapped engine has a window size
+        putResult("window.bytes", String.valueOf(windowSize));
+      if (engineType == ENGINE_ASYNC) // async engine may try many depths
+        runDepths();
+      else if (sweepMax > 0)      // try many sizes with the same engine
+        runSweep();
+      else                        // only the one size chosen by the user
+        runRepeat(false);         // write, read, and delete files
+    }
 
-    panel01.add(panel31);
-    panel01.add(Box.createVerticalStrut(20)); // space between panels
+    if (csvWriter != null)        // finish CSV file for intervals
+    {
+      csvWriter.close();          // errors are remembered, not thrown
+      if (csvWriter.checkError())
+        putError("Can't write CSV file " + csvFilename);
+      csvWriter = null;
+    }
 
-    /* Create a horizontal panel for the progress bar and status text. */
+    if ((resultsList != null) && (cancelFlag == false))
+      saveResults();              // compare with baseline, append to file
+    resultsList = null;
 
-    progressBar = new JProgressBar(0, 100);
-    progressBar.setBorderPainted(false);
-    if (buttonFont != null) progressBar.setFont(buttonFont);
-    progressBar.setString(
-      " 999,999,999,999,999,999 bytes of 999,999,999,999,999,999 or 999.9% ");
-    progressBar.setStringPainted(true);
+    maxDataBytes = oldBytes;      // user's options, for next time
+    threadCount = oldThreads;
 
-    panel01.add(progressBar);
-    panel01.add(Box.createVerticalStrut(20)); // space between panels
+    /* We are done.  Turn off the "Cancel" button and allow the user to click
+    the "Start" button again. */
 
-    /* Create a horizontal panel for the action buttons. */
+    if (consoleFlag == false)     // only if we have a graphical interface
+    {
+      cancelButton.setEnabled(false); // disable "Cancel" button
+      driveFolderButton.setEnabled(true); // enable "Drive Folder" button
+      startButton.setEnabled(true); // enable "Start" button
+      startButton.requestFocusInWindow(); // give keyboard focus to button
+      mainFrame.repaint();        // sometimes gets behind after all updating
+    }
 
-    JPanel panel51 = new JPanel();
-    panel51.setLayout(new BoxLayout(panel51, BoxLayout.X_AXIS));
+  } // end of startErase() method
 
-    driveFolderButton = new JButton("Drive Folder...");
-    driveFolderButton.addActionListener(action);
-    if (buttonFont != null) driveFolderButton.setFont(buttonFont);
-    driveFolderButton.setMnemonic(KeyEvent.VK_D);
-    driveFolderButton.setToolTipText("Select folder on disk drive.");
-    panel51.add(driveFolderButton);
 
-    panel51.add(Box.createHorizontalGlue()); // space between buttons
+/*
+  startStatusTimer() and stopStatusTimer() methods
 
-    startButton = new JButton("Start");
-    startButton.addActionListener(action);
-    startButton.setEnabled(false);
-    if (buttonFont != null) startButton.setFont(buttonFont);
-    startButton.setMnemonic(KeyEvent.VK_S);
-    startButton.setToolTipText("Start writing then reading.");
-    panel51.add(startButton);
+  Start or stop the sampler thread that calls updateClockData(), and the
+  timer that calls updateProgressBar().  The sampler uses a nanosecond clock
+  and is independent of the status message, which the graphical interface
+  updates with a Swing timer.  A console application has no status message.
+  Stopping waits for the sampler thread to finish.
+*/
+  static void startStatusTimer()
+  {
+    sampler = new DriveSpeed1Sampler(1000000L * sampleMillis);
+    Thread thread = new Thread(sampler, "sampler");
+    thread.setDaemon(true);       // don't keep application running
+    sampler.thread = thread;      // so the sampler can be woken up
+    thread.start();               // start sampling byte counts
+    if (consoleFlag == false)     // only if we have a graphical interface
+      statusTimer.start();        // start updating the status message
+  }
 
-    panel51.add(Box.createHorizontalGlue()); // space between buttons
+  static void stopStatusTimer()
+  {
+    if (sampler != null)          // if there is a sampler thread
+    {
+      sampler.stop();             // tell it to stop, and wait until it does
+      sampler = null;             // create a new sampler next time
+    }
+    if (consoleFlag == false)     // only if we have a graphical interface
+      statusTimer.stop();         // stop updating status message by timer
+  }
 
-    cancelButton = new JButton("Cancel");
-    cancelButton.addActionListener(action);
-    cancelButton.setEnabled(false);
-    if (buttonFont != null) cancelButton.setFont(buttonFont);
-    cancelButton.setMnemonic(KeyEvent.VK_C);
-    cancelButton.setToolTipText("Stop reading or writing.");
-    panel51.add(cancelButton);
 
-    panel51.add(Box.createHorizontalGlue()); // space between buttons
+/*
+  stopPass() method
 
-    exitButton = new JButton("Exit");
-    exitButton.addActionListener(action);
-    if (buttonFont != null) exitButton.setFont(buttonFont);
-    exitButton.setMnemonic(KeyEvent.VK_X);
-    exitButton.setToolTipText("Close this program.");
-    panel51.add(exitButton);
+  Stop the sampler and the status timer at the end of a read or write pass,
+  take one final sample, and do one final update of the progress bar, unless
+  the user has cancelled us.  Remember the state of the pass for endPass().
+*/
+  static void stopPass()
+  {
+    passState = eraseState;       // remember if reading or writing
+    stopStatusTimer();            // stop sampling, updating status message
+    stopTime = System.nanoTime(); // ending clock time for pass
+    updateClockData(bytesAllFiles.sum(), stopTime); // final sample
+    eraseState = ERASE_NONE;      // we are not reading or writing data
+    if (cancelFlag == false)      // only if the user hasn't cancelled us
+      updateProgressBar();        // force the progress bar to update
+  }
 
-    panel01.add(panel51);
-    panel01.add(Box.createVerticalStrut(25)); // space between panels
 
-    /* Create a horizontal panel for the read and write speeds.  Align the
-    numbers with BorderLayout.NORTH instead of BorderLayout.CENTER to match
-    what FlowLayout does inside the titled borders above when our application
-    window expands. */
+/*
+  summarizeSpeeds() method
+
+  Calculate statistics for the first <count> speeds, ignoring negative speeds
+  (too fast to measure).  Return an array with: 0 = number of good speeds, 1 =
+  mean, 2 = sample standard deviation, 3 = minimum, 4 = maximum, 5 = 95%
+  confidence interval as plus or minus a percent of the mean, and 6 = same
+  interval in bytes per second.  The mean and others are negative if there
+  are no good speeds.  The percent is zero for no good speeds, which can't get
+  any better, and infinite for only one good speed.
+*/
+  static double[] summarizeSpeeds(double[] speeds, int count)
+  {
+    int i;                        // index variable
+    int n;                        // number of good speeds
+    double[] result;              // our statistics, as described above
+    double sum, squares;          // sums for mean and standard deviation
+
+    result = new double[] {0.0, -1.0, -1.0, -1.0, -1.0, 0.0, 0.0};
+    n = 0;
+    sum = 0.0;
+    for (i = 0; i < count; i ++)  // first find the mean, minimum, and maximum
+    {
+      if (speeds[i] < 0.0)        // ignore speeds that weren't measured
+        continue;
+      result[3] = (n == 0) ? speeds[i] : Math.min(result[3], speeds[i]);
+      result[4] = (n == 0) ? speeds[i] : Math.max(result[4], speeds[i]);
+      sum += speeds[i];
+      n ++;
+    }
+    if (n == 0)                   // no good speeds
+      return(result);
+    result[0] = n;
+    result[1] = sum / n;          // mean
+    result[2] = 0.0;              // no deviation for only one speed
+    result[5] = Double.POSITIVE_INFINITY; // no interval for only one speed
+    if (n < 2)
+      return(result);
+
+    squares = 0.0;                // then the sample standard deviation
+    for (i = 0; i < count; i ++)
+      if (speeds[i] >= 0.0)
+        squares += (speeds[i] - result[1]) * (speeds[i] - result[1]);
+    result[2] = Math.sqrt(squares / (n - 1));
+    result[6] = (((n - 1) <= T_95.length) ? T_95[n - 2] : T_95_NORMAL)
+      * result[2] / Math.sqrt(n); // half width of confidence interval
+    result[5] = (result[1] > 0.0) ? (100.0 * result[6] / result[1])
+      : Double.POSITIVE_INFINITY;
+    return(result);
+  }
 
-    JPanel panel61 = new JPanel(new GridLayout(1, 2, 20, 0));
 
-    JPanel panel62 = new JPanel();
-    panel62.setBorder(BorderFactory.createTitledBorder(null, " Read Speed ",
-      TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION,
-      buttonFont));
-    panel62.setLayout(new BorderLayout(0, 0));
-    panel62.setToolTipText("Current or final average read speed.");
-    readSpeedText = new JTextField("9,999.9 MB/s", 9); // minimum of 8 columns
-    readSpeedText.setBorder(BorderFactory.createEmptyBorder(5, 10, 10, 10));
-    readSpeedText.setEditable(false); // user can't change this text area
-    if (speedFont != null) readSpeedText.setFont(speedFont);
-    readSpeedText.setHorizontalAlignment(JTextField.CENTER);
-    readSpeedText.setOpaque(false);
-    panel62.add(readSpeedText, BorderLayout.NORTH);
-    panel61.add(panel62);
+/*
+  syncFile() method
+
+  Force the data written to a file out to the drive, and add the time to the
+  totals for this pass.  Return false if there was an error, which for writing
+  usually means that the disk is full.
+*/
+  static boolean syncFile(DriveSpeed1File file)
+  {
+    long started = System.nanoTime(); // syncing is timed separately
+    try { file.sync(); }
+    catch (IOException ioe) { return(false); }
+    syncCount.increment();        // one more sync for this pass
+    syncNanos.add(System.nanoTime() - started);
+    return(true);
+  }
 
-    JPanel panel63 = new JPanel();
-    panel63.setBorder(BorderFactory.createTitledBorder(null, " Write Speed ",
-      TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION,
-      buttonFont));
-    panel63.setLayout(new BorderLayout(0, 0));
-    panel63.setToolTipText("Current or final average write speed.");
-    writeSpeedText = new JTextField("9,999.9 MB/s", 9); // minimum of 8 columns
-    writeSpeedText.setBorder(BorderFactory.createEmptyBorder(5, 10, 10, 10));
-    writeSpeedText.setEditable(false); // user can't change this text area
-    if (speedFont != null) writeSpeedText.setFont(speedFont);
-    writeSpeedText.setHorizontalAlignment(JTextField.CENTER);
-    writeSpeedText.setOpaque(false);
-    panel63.add(writeSpeedText, BorderLayout.NORTH);
-    panel61.add(panel63);
 
-    panel01.add(panel61);
+/*
+  updateClockData() method
 
-    /* Nothing in our layout needs to expand if the window size gets bigger, so
-    center everything horizontally and vertically.  The glue will stretch. */
+  Don't count data bytes during the first and last few seconds of a read/write
+  pass, to avoid our final averages being skewed by some common forms of disk
+  caching.  This method is called by the sampler thread with the current
+  number of bytes and the current clock time in nanoseconds.  All samples are
+  also kept as intervals for reportSeries().
+*/
+  static void updateClockData(long done, long clock)
+  {
+    seriesAdd(done, clock);       // keep all intervals for CSV and cliffs
 
-    Box panel91 = Box.createHorizontalBox(); // basic horizontal box
-    panel91.add(Box.createGlue()); // stretch to the left
-    panel91.add(panel01);
-    panel91.add(Box.createGlue()); // stretch to the right
+    if ((clock - startTime) < ignoreDelayNanos)
+    {
+      /* Do nothing during a starting delay before we collect information. */
+    }
+    else
+    {
+      /* This clock event is after our starting delay.  Save the first as our
+      starting byte count and time.  Add each to a list of pending clock data,
+      then peel off older information that may now be a valid stopping time. */
 
-    Box panel92 = Box.createVerticalBox(); // basic vertical box
-    panel92.add(Box.createGlue()); // stretch to the top
-    panel92.add(panel91);
-    panel92.add(Box.createGlue()); // stretch to the bottom
+      if (ignoreStartBytes < 0)   // first information after starting delay?
+      {
+        ignoreStartBytes = done;  // ignore all data bytes before now
+        ignoreStartClock = clock; // remember when we started good data
+      }
+      queueAdd(done, clock);      // add bytes, time to pending clock data
+      while ((queueItemCount > 0) // look at older items in pending clock data
+        && ((clock - queueDataClock[queueFirstIndex]) >= ignoreDelayNanos))
+      {
+        ignoreStopBytes = queueDataBytes[queueFirstIndex]; // new byte count
+        ignoreStopClock = queueDataClock[queueFirstIndex]; // new clock time
+        queueDelete();            // delete this item from pending clock data
+      }
+    }
+  } // end of updateClockData() method
 
-    /* Create the main window frame for this application.  We use a border
-    layout to add margins around the central area. */
 
-    mainFrame = new JFrame(PROGRAM_TITLE);
-    Container panel93 = mainFrame.getContentPane(); // where content meets frame
-    panel93.setLayout(new BorderLayout(0, 0));
-    panel93.add(Box.createVerticalStrut(25), BorderLayout.NORTH);
-    panel93.add(Box.createHorizontalStrut(20), BorderLayout.WEST);
-    panel93.add(panel92, BorderLayout.CENTER); // initial panel
-    panel93.add(Box.createHorizontalStrut(20), BorderLayout.EAST);
-    panel93.add(Box.createVerticalStrut(20), BorderLayout.SOUTH);
+/*
+  updateProgressBar() method
 
-    mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    mainFrame.setLocation(windowLeft, windowTop); // normal top-left corner
-    if ((windowHeight < MIN_FRAME) || (windowWidth < MIN_FRAME))
-      mainFrame.pack();           // do component layout with minimum size
-    else                          // the user has given us a window size
-      mainFrame.setSize(windowWidth, windowHeight); // size of normal window
-    if (maximizeFlag) mainFrame.setExtendedState(JFrame.MAXIMIZED_BOTH);
-    mainFrame.validate();         // recheck application window layout
-    driveFolderButton.requestFocusInWindow(); // give keyboard focus to button
-    mainFrame.setVisible(true);   // and then show application window
+  Update the progress bar (status timer) at scheduled clock ticks, so that the
+  text doesn't change too quickly, and the progress bar doesn't advance too
+  smoothly.  Since this method runs in a separate timer thread (independent),
+  we are careful to work with consistent local copies of global variables, and
+  to set text fields as single, complete strings.
+*/
+  static void updateProgressBar()
+  {
+    StringBuffer buffer;          // for creating complete text strings
+    long done = bytesAllFiles.sum(); // get local copy so it doesn't change
+    double percent;               // for calculating percent complete
+    double rate;                  // current (most recent) bytes per second
+    String speed;                 // current data rate for reading or writing
+    long total = totalBytesWritten; // get local copy so it doesn't change
 
-    /* Let the graphical interface run the application now. */
+    /* A console application has no progress bar or text boxes.  The clock
+    data for calculating final averages comes from the sampler thread. */
 
-    progressBar.setString(NO_DRIVE_TEXT); // clear placeholder text
-    readSpeedText.setText(NO_SPEED_TEXT);
-    writeSpeedText.setText(NO_SPEED_TEXT);
+    if (consoleFlag)              // if we are a console application
+      return;                     // nothing to update
 
-  } // end of main() method
+    /* Basic information for the progress bar and status text.  This is mostly
+    independent of reading and writing, except that we can infer the state. */
+
+    buffer = new StringBuffer();  // faster than String for appends
+    buffer.append(formatComma.format(done));
+    if ((total > 0) || ((total = maxDataBytes) < MAX_FILE_SIZE))
+    {                             // if reading, or writing with a limit
+      buffer.append(" bytes of ");
+      buffer.append(formatComma.format(total));
+      if (done <= total)          // can we calculate percent done?
+      {
+        percent = (100.0 * (double) done) / (double) total;
+        progressBar.setValue((int) percent); // set size of progress bar
+        buffer.append(" or ");
+        buffer.append(formatPointOne.format(percent));
+        buffer.append("%");
+      }
+    }
+    else                          // else writing without a limit
+    {
+      buffer.append(" bytes written, unknown total");
+    }
+    progressBar.setString(buffer.toString()); // set text for progress bar
+
+    /* Update the current speed.  A weighted average with a short delay shows
+    smoother values.  Since the numbers shown here are transient, assume that
+    TIMER_DELAY is a good measure of time between calls to this method.  Don't
+    calculate an offset from the system clock, which would be slower and might
+    allow for division by zero. */
+
+    rate = (double) (done - userBytesPrev) * 1000.0 / TIMER_DELAY;
+    if (userBytesRate < 0.0)      // were there previous bytes per second?
+      userBytesRate = rate;       // no, fix calculation with current rate
+    speed = formatSpeed((rate * 0.7) + (userBytesRate * 0.3));
+                                  // scale into nice units per second
+    if (eraseState == ERASE_READ) // if we are actively reading
+      readSpeedText.setText(speed);
+    else if (eraseState == ERASE_WRITE) // if we are actively writing
+      writeSpeedText.setText(speed);
+    else if (eraseState == ERASE_MIXED) // reading and writing together
+    {
+      long written = writeBytes.sum(); // the rest of the bytes were read
+      double writeRate = (double) (written - userWritePrev) * 1000.0
+        / TIMER_DELAY;            // same calculation for only writing
+      if (userWriteRate < 0.0)
+        userWriteRate = writeRate;
+      double writeAverage = (writeRate * 0.7) + (userWriteRate * 0.3);
+      readSpeedText.setText(formatSpeed(((rate * 0.7) + (userBytesRate * 0.3))
+        - writeAverage));
+      writeSpeedText.setText(formatSpeed(writeAverage));
+      userWritePrev = written;
+      userWriteRate = writeRate;
+    }
+    userBytesPrev = done;         // remember previously reported amount
+    userBytesRate = rate;         // remember current bytes per second
+
+  } // end of updateProgressBar() method
 
-// ------------------------------------------------------------------------- //
 
 /*
-  checkDriveFolder() method
+  userButton() method
 
-  If a writeable folder has been selected, then enable the "Start" button.
-  This method is overly protective because it is possible to select a good
-  folder, then delete the folder, before clicking the "Start" button.
+  This method is called by our action listener actionPerformed() to process
+  buttons, in the context of the main DriveSpeed1 class.
 */
-  static void checkDriveFolder()
+  static void userButton(ActionEvent event)
   {
-    if (driveSelection == null)   // if there is no drive selection
+    Object source = event.getSource(); // where the event came from
+    if (source == cancelButton)   // "Cancel" button
     {
-//    driveSelection = null;      // cancel any previous selection
-      progressBar.setString(NO_DRIVE_TEXT); // repeat generic message
-      progressBar.setValue(0);    // and clear any previous status value
-      startButton.setEnabled(false); // can't start with this
+      int reply = JOptionPane.showConfirmDialog(mainFrame,
+        "Cancel button clicked during test.\nDelete temporary files first?");
+      if (reply == JOptionPane.CANCEL_OPTION)
+        return;                   // do nothing and ignore Cancel button
+      else                        // otherwise the answer was "Yes" or "No"
+        deleteFlag = (reply == JOptionPane.YES_OPTION);
+      cancelButton.setEnabled(false); // don't allow multiple cancels
+      cancelFlag = true;          // tell other threads that all work stops now
     }
-    else if (driveSelection.exists() == false) // if it doesn't exist
+    else if (source == driveFolderButton) // "Drive Folder" button
     {
-      driveSelection = null;      // cancel any previous selection
-      progressBar.setString("Selected drive folder does not exist.");
-      progressBar.setValue(0);    // and clear any previous status value
-      startButton.setEnabled(false); // can't start with this
+      fileChooser.resetChoosableFileFilters(); // remove any existing filters
+      fileChooser.setDialogTitle("Select Writeable Drive Folder...");
+      fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+      fileChooser.setMultiSelectionEnabled(true); // folders tested together
+      if (fileChooser.showOpenDialog(mainFrame) == JFileChooser.APPROVE_OPTION)
+      {
+        driveList = fileChooser.getSelectedFiles(); // correct Java objects
+        if (driveList.length == 0) // some systems only set one selection
+          driveList = new File[] {fileChooser.getSelectedFile()};
+        driveSelection = driveList[0]; // first folder, for messages
+      }
+      checkDriveFolder();         // get someone else to check the folder
+      if (driveSelection != null) // if the folder is acceptable
+      {
+        progressBar.setString("Click <Start> button when ready to begin.");
+        progressBar.setValue(0);  // and clear any previous status value
+        startButton.setEnabled(true); // we are good to go
+      }
     }
-    else if (driveSelection.isDirectory() == false) // if it's not a folder
+    else if (source == exitButton) // "Exit" button
     {
-      driveSelection = null;      // cancel any previous selection
-      progressBar.setString("Selected object is not a directory or folder.");
-      progressBar.setValue(0);    // and clear any previous status value
-      startButton.setEnabled(false); // can't start with this
+      System.exit(0);             // always exit with zero status from GUI
     }
-    else if (driveSelection.canWrite() == false) // if we can't write to it
+    else if (source == ignoreDialog) // number of seconds to ignore
     {
-      driveSelection = null;      // cancel any previous selection
-      progressBar.setString("Can't write to selected directory or folder.");
-      progressBar.setValue(0);    // and clear any previous status value
-      startButton.setEnabled(false); // can't start with this
+      ignoreCheckbox.setSelected(true); // choosing a number forces selection
+    }
+    else if (source == startButton) // "Start" button
+    {
+      Thread th = new Thread(new DriveSpeed1User(), "eraseThread");
+      th.setPriority(Thread.MIN_PRIORITY); // use lowest priority in Java VM
+      th.start();                 // now run as separate thread to erase disk
     }
-    else                          // this folder should be good for writing
+    else if (source == statusTimer) // update timer for status message text
     {
-      /* Do nothing here.  Our caller will have additional code. */
+      updateProgressBar();        // force the progress bar to update
     }
-  } // end of checkDriveFolder() method
+    else                          // fault in program logic, not by user
+    {
+      System.err.println("Error in userButton(): unknown ActionEvent: "
+        + event);                 // should never happen, so write on console
+    }
+  } // end of userButton() method
 
 
 /*
-  createFilename() method
+  workerDone() method
 
-  Common routine to create a temporary file name given a file number, so that
-  all methods create the same file names in the old MS-DOS 8.3 format.
+  Called by each worker thread for reading or writing when it finishes, so
+  that the speed for each drive folder is measured until the last worker for
+  that folder is done, not until the slowest folder is done.
 */
-  static String createFilename(int number)
+  static synchronized void workerDone(int index)
   {
-    String digits = String.valueOf(number); // convert integer to characters
-    return("ERASE000".substring(0, (8 - digits.length())) + digits + ".DAT");
+    int drive = driveIndex(index); // drive folder for this worker
+    driveClock[drive] = Math.max(driveClock[drive], System.nanoTime());
   }
 
 
 /*
-  formatSpeed() method
+  writeFiles() method
 
-  Given a transfer rate or speed in bytes per second, format a string with the
-  speed in kilobytes per second, megabytes, gigabytes, or terabytes (whichever
-  is the most expressive).
+  Create as many temporary files as necessary to get the total number of bytes
+  selected by the user, and return the highest file number created.  The work
+  is done by writeWorker() in one or more threads.  File numbers that weren't
+  created have a size of -1.  Preallocating files, if chosen by the user, is
+  done here before the write pass starts its clock.
 */
-  static String formatSpeed(double speed)
+  static int writeFiles()
   {
-    double units = speed;         // start with bytes per second
-    String suffix = " B/s";       // matching string with those units
-    if (units > 1999.4) { units = units / 1024.0; suffix = " KB/s"; }
-    if (units > 1999.4) { units = units / 1024.0; suffix = " MB/s"; }
-    if (units > 1999.4) { units = units / 1024.0; suffix = " GB/s"; }
-    if (units > 1999.4) { units = units / 1024.0; suffix = " TB/s"; }
-    if (units > 1999.4) { units = units / 1024.0; suffix = " PB/s"; }
-    return(formatPointOne.format(units) + suffix); // scaled into units
+    int i;                        // index variable
+    int result;                   // highest file number created
+
+    if (fileSizes == null) fileSizes = new long[MAX_FILE_COUNT + 1];
+    if (fileAllocated == null) fileAllocated = new boolean[MAX_FILE_COUNT + 1];
+    for (i = 0; i <= MAX_FILE_COUNT; i ++)
+    {
+      fileAllocated[i] = false;   // no files preallocated yet
+      fileSizes[i] = -1;          // no files created yet
+    }
+    deleteManifest();             // kept files and manifest are now stale
+    if (preallocType != PREALLOC_NONE) // before clock starts for writing
+      allocateFiles();            // set size of first file for each worker
+    paceBytes = (modeType == MODE_SEQUENTIAL) ? bufferSize : 0; // random
+                                  // ... and mixed tests pace only later pass
+    beginPass(ERASE_WRITE);       // start clock, counters for writing
+    runWorkers(WORKER_WRITE);     // write all files, wait for threads
+    stopPass();                   // stop clock, update status
+    result = 0;                   // find highest file number created
+    for (i = 1; i <= MAX_FILE_COUNT; i ++)
+      if (fileSizes[i] >= 0) result = i;
+    return(result);
   }
 
 
 /*
-  queueAdd() method
+  writeManifest() method
 
-  Add a new byte count and clock time to the end of our queue of pending data.
-  This is really a circular buffer, because that's faster and doesn't create
-  numerous Long objects like Vector or other classes would.
+  Write a manifest for the files that we just created, so that a later test
+  can read them again with the -reuse option.  This is a plain text file with
+  "name=value" lines.  Errors are reported, but don't stop testing.
 */
-  static void queueAdd(long byteCount, long clockTime)
+  static void writeManifest()
   {
+    File fp;                      // File object for manifest
     int i;                        // index variable
+    PrintWriter writer;           // for writing manifest file
 
-    if (queueItemCount < QUEUE_SIZE) // stop if too many items in queue
+    fp = new File(driveList[0], MANIFEST_NAME);
+    try
     {
-      i = (queueFirstIndex + queueItemCount) % QUEUE_SIZE; // next index
-      queueDataBytes[i] = byteCount; // save number of bytes
-      queueDataClock[i] = clockTime; // save clock time in milliseconds
-      queueItemCount ++;          // one more item in pending clock data
+      writer = new PrintWriter(new BufferedWriter(new FileWriter(fp)));
+      writer.println("# " + PROGRAM_TITLE);
+      writer.println("# Files kept for reading with the -reuse option.");
+      writer.println("seed=" + verifySeed);
+      writer.println("verify=" + (verifyFlag ? "on" : "off"));
+      writer.println("pattern=" + PATTERN_CHOICES[patternType]);
+      writer.println("threads=" + threadCount);
+      for (i = 0; i < driveList.length; i ++)
+        writer.println("folder=" + driveList[i].getAbsolutePath());
+      for (i = 1; i <= totalFilesCreated; i ++)
+        if (fileSizes[i] >= 0)    // skip numbers that weren't created
+          writer.println("file." + i + "=" + fileSizes[i]);
+      writer.close();             // errors are remembered, not thrown
+      if (writer.checkError())
+        putError("Can't write manifest " + fp.getPath());
+    }
+    catch (IOException ioe)
+    {
+      putError("Can't create manifest " + fp.getPath() + ": "
+        + ioe.getMessage());
+    }
+  }
+
+
+/*
+  writeWorker() method
+
+  One worker thread for writeFiles().  Each worker writes its share of the
+  total bytes to its own files.  We don't report errors to the user, because
+  we assume that all errors mean "disk is full" or a file has reached the
+  maximum size.
+
+  The value of <bufferSize> plus the value of <maxDataBytes> must be less than
+  Long.MAX_VALUE or else <bytesThisWorker> can overflow, go negative, and
+  create an infinite loop of writing.  There are currently no storage devices
+  of such capacity except for a null device.  If this is a concern, then put
+  the check (bytesThisWorker >= 0) and the condition (bytesThisWorker < share)
+  below.
+*/
+  static void writeWorker(int index)
+  {
+    ByteBuffer buffer;            // data buffer for this worker
+    long bytesThisFile;           // number of bytes in current file
+    long bytesSinceSync;          // bytes written since last sync
+    long bytesThisWorker;         // number of bytes written by this worker
+    int fileNumber;               // current file number
+    File fp;                      // File object for one temporary file
+    DriveSpeed1Latency latency;   // request times for this worker
+    DriveSpeed1File out;          // I/O engine for writing one file
+    ByteBuffer[] pool;            // rotating data buffers for this worker
+    int poolIndex;                // index of next buffer in <pool>
+    long requests;                // number of requests by this worker
+    long share;                   // maximum bytes for this worker
+    long started;                 // nanosecond clock when request started
+
+    pool = workerPools[index];    // each worker has its own buffers
+    poolIndex = 0;                // start with first buffer in pool
+    latency = workerLatency[index]; // and its own request times
+    bytesThisWorker = 0;          // no bytes written yet
+    fileNumber = index + 1;       // our first file number
+    requests = 0;                 // no requests yet, for pacing
+    share = maxDataBytes / threadCount; // our share of the total bytes
+    if ((share % bufferSize) != 0) // round up to a whole number of buffers
+      share += bufferSize - (share % bufferSize);
+    while ((cancelFlag == false)  // while the user hasn't cancelled us
+      && (fileNumber <= MAX_FILE_COUNT) // and we don't have too many files
+      && (bytesThisWorker < share)) // and there are more bytes to write
+    {
+      /* Create one file and fill it with the data pattern. */
+
+      bytesSinceSync = 0;         // no bytes waiting to be forced to drive
+      bytesThisFile = 0;          // no bytes written to this file yet
+      fp = createFile(fileNumber); // from name
+      try                         // create file, or overwrite preallocated file
+      {
+        out = new DriveSpeed1File(fp, engineType,
+          (fileAllocated[fileNumber] ? FILE_UPDATE : FILE_CREATE));
+        out.attach(workerQueues[index], fileNumber); // only for async engine
+      }
+      catch (IOException ioe)     // can't create file, or engine not supported
+      {
+        if (fileNumber == 1)      // only tell user if first file fails
+          putError("Can't create file " + fp.getName() + ": "
+            + ioe.getMessage());  // such as direct I/O not supported
+        break;                    // exit early from outer <while> loop
+      }
+      while ((cancelFlag == false) && (bytesThisWorker < share))
+      {
+        buffer = pool[poolIndex]; // next buffer from rotating pool
+        poolIndex = (poolIndex + 1) % pool.length;
+        if (markFlag && (engineType != ENGINE_ASYNC)) // block headers
+          markBlocks(buffer, fileNumber, bytesThisFile); // unique, checking
+        started = paceWait(index, requests ++); // time request, or from
+                                  // ... when it was scheduled to start
+        try { out.write(buffer, bytesThisFile); } // one buffer of data
+        catch (IOException ioe)   // assume all errors are "disk may be full"
+        {
+          break;                  // exit early from inner <while> loop
+        }
+        if (engineType != ENGINE_ASYNC) // async requests count themselves
+        {
+          latency.record(System.nanoTime() - started);
+          bytesAllFiles.add(bufferSize); // add to total bytes done all files
+          driveBytes[driveIndex(index)].add(bufferSize); // and this folder
+        }
+        bytesThisFile += bufferSize; // add to bytes done for current file
+        bytesThisWorker += bufferSize; // add to bytes done by this worker
+        bytesSinceSync += bufferSize; // add to bytes not forced to drive
+        if ((syncBytes > 0) && (bytesSinceSync >= syncBytes))
+        {
+          if (syncFile(out) == false) // force data to drive, inside timing
+            break;                // assume "disk may be full"
+          bytesSinceSync = 0;     // nothing waiting after sync
+        }
+      }
+      if ((syncBytes != 0) && (bytesSinceSync > 0)) // rest of file at close
+        syncFile(out);            // errors show up on next file
+      out.close();                // close the output file, ignore errors
+      if ((engineType == ENGINE_ASYNC) // failed requests weren't written
+        && (workerQueues[index].failed < bytesThisFile))
+      {
+        bytesThisFile = workerQueues[index].failed; // before first failure
+      }
+      fileSizes[fileNumber] = bytesThisFile; // remember size of this file
+      if (bytesThisFile < bufferSize) // small files may mean disk is full
+        break;                    // exit early from outer <while> loop
+      fileNumber += threadCount;  // our next file number
     }
-    else
-      throw new IndexOutOfBoundsException("pending clock data is full");
-  }
+  } // end of writeWorker() method
+
+} // end of DriveSpeed1 class
 
+// ------------------------------------------------------------------------- //
 
 /*
-  queueClear() method
+  DriveSpeed1User class
 
-  Clear or initialize our queue of pending data about byte counts and clock
-  times.
+  This class listens to input from the user and passes back event parameters to
+  a static method in the main class.
 */
-  static void queueClear()
-  {
-    if (queueDataBytes == null) queueDataBytes = new long[QUEUE_SIZE];
-    if (queueDataClock == null) queueDataClock = new long[QUEUE_SIZE];
-    queueFirstIndex = 0;          // first item goes at index zero
-    queueItemCount = 0;           // there is nothing in the queue
-  }
 
+class DriveSpeed1User implements ActionListener, Runnable
+{
+  /* empty constructor */
 
-/*
-  queueDelete() method
+  public DriveSpeed1User() { }
 
-  Delete the first byte count and clock time from our queue of pending data.
-*/
-  static void queueDelete()
+  /* button listener, dialog boxes, etc */
+
+  public void actionPerformed(ActionEvent event)
   {
-    if (queueItemCount > 0)       // must be something before we can delete
-    {
-      queueFirstIndex = (queueFirstIndex + 1) % QUEUE_SIZE; // next index
-      queueItemCount --;          // one less item in pending clock data
-    }
-    else
-      throw new IndexOutOfBoundsException("pending clock data is empty");
+    DriveSpeed1.userButton(event);
   }
 
+  /* separate heavy-duty processing thread */
 
-/*
-  showHelp() method
-
-  Show the help summary.  This is a UNIX standard and is expected for all
-  console applications, even very simple ones.
-*/
-  static void showHelp()
-  {
-    System.err.println();
-    System.err.println(PROGRAM_TITLE);
-    System.err.println();
-    System.err.println("This is a graphical application.  You may give options on the command line:");
-    System.err.println();
-    System.err.println("  -? = -help = show summary of command-line syntax");
-    System.err.println("  -u# = font size for buttons, dialogs, etc; default is local system;");
-    System.err.println("      example: -u16");
-    System.err.println("  -w(#,#,#,#) = normal window position: left, top, width, height;");
-    System.err.println("      example: -w(50,50,700,500)");
-    System.err.println("  -x = maximize application window; default is normal window");
-    System.err.println();
-    System.err.println(COPYRIGHT_NOTICE);
-//  System.err.println();
+  public void run() { DriveSpeed1.startErase(); }
 
-  } // end of showHelp() method
+} // end of DriveSpeed1User class
 
+// ------------------------------------------------------------------------- //
 
 /*
-  startErase() method
-
-  Erase the disk drive.  This method should be called from a secondary thread,
-  not from the main thread that runs the GUI.
+  DriveSpeed1File class
 
-  The value of <bufferSize> plus the value of <maxDataBytes> must be less than
-  Long.MAX_VALUE or else <bytesAllFiles> can overflow, go negative, and create
-  an infinite loop of writing.  There are currently no storage devices of such
-  capacity except for a null device.  If this is a concern, then put the check
-  (bytesAllFiles >= 0) and the condition (bytesAllFiles < maxDataBytes) below.
+  This class holds one open temporary file for reading or writing with the I/O
+  engine chosen by the user, so that the loops in the main class don't need to
+  know how data gets to or from the drive.  Positions are byte offsets from the
+  start of the file.
 */
-  static void startErase()
+
+class DriveSpeed1File
+{
+  static volatile boolean cleanerFailed; // true if we can't unmap windows
+  static Method cleanerMethod;    // Unsafe.invokeCleaner() for unmapping
+  static Object unsafeObject;     // instance of sun.misc.Unsafe, or null
+
+  int access;                     // how file was opened: read, create, etc
+  AsynchronousFileChannel async;  // asynchronous channel, or null
+  long asyncLimit;                // file size for reading with async engine
+  FileChannel channel;            // file channel for newer I/O engines
+  int engine;                     // I/O engine number from main class
+  File file;                      // File object for this open file
+  int fileNumber;                 // temporary file number, for async engine
+  FileInputStream inp;            // byte input stream for reading, or null
+  long mappedLimit;               // file size we can map without extending
+  long mappedStart;               // file position of first mapped byte
+  MappedByteBuffer mapped;        // current memory-mapped window, or null
+  ByteBuffer mappedView;          // duplicate of <mapped> for copying
+  FileOutputStream out;           // byte output stream for writing, or null
+  DriveSpeed1Queue queue;         // requests for async engine, or null
+  long streamPosition;            // next position for byte streams, or
+                                  // ... highest position for mapped files
+  RandomAccessFile update;        // random access for byte streams, or null
+
+  /* constructor opens file for reading, creating, or updating */
+
+  public DriveSpeed1File(File fp, int engine, int access) throws IOException
   {
-    byte[] buffer;                // data buffer for reading, writing files
-    int bufferSize;               // number of bytes in our data buffer
-    long bytesThisFile;           // number of bytes in current file
-    int fileNumber;               // current file number in <totalFiles>
-    long finalBytes;              // number of bytes between start/stop delays
-    long finalClock;              // elapsed time between start/stop delays
-    File fp;                      // File object to write, read, or delete
-    int i;                        // index variable
-    FileInputStream inp;          // byte input stream for reading one file
-    FileOutputStream out;         // byte output stream for writing one file
-    int totalFilesCreated;        // total number of temporary files created
+    this.access = access;         // remember how file was opened
+    this.async = null;            // no asynchronous channel yet
+    this.channel = null;          // no file channel yet
+    this.engine = engine;         // remember which engine we use
+    this.file = fp;               // remember file for error messages
+    this.inp = null;              // no byte streams yet
+    this.mapped = null;           // no memory-mapped window yet
+    this.mappedView = null;
+    this.out = null;
+    this.queue = null;            // caller must attach requests for async
+    this.streamPosition = 0;      // byte streams start at beginning of file
+    this.update = null;
+
+    if (engine == DriveSpeed1.ENGINE_DIRECT) // bypass system disk cache
+    {
+      OpenOption[] options;       // how the file channel is opened
+      if (access == DriveSpeed1.FILE_CREATE) // create new or replace old
+        options = new OpenOption[] { StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE,
+          com.sun.nio.file.ExtendedOpenOption.DIRECT };
+      else if (access == DriveSpeed1.FILE_UPDATE) // write existing file
+        options = new OpenOption[] { StandardOpenOption.WRITE,
+          com.sun.nio.file.ExtendedOpenOption.DIRECT };
+      else                        // read existing file
+        options = new OpenOption[] { StandardOpenOption.READ,
+          com.sun.nio.file.ExtendedOpenOption.DIRECT };
+      channel = FileChannel.open(fp.toPath(), options);
+    }
+    else if ((engine == DriveSpeed1.ENGINE_CHANNEL) // through disk cache
+      || (engine == DriveSpeed1.ENGINE_HEAP)) // same with Java array
+    {
+      if (access == DriveSpeed1.FILE_CREATE) // create new or replace old
+        channel = FileChannel.open(fp.toPath(), StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+      else if (access == DriveSpeed1.FILE_UPDATE) // write existing file
+        channel = FileChannel.open(fp.toPath(), StandardOpenOption.WRITE);
+      else                        // read existing file
+        channel = FileChannel.open(fp.toPath(), StandardOpenOption.READ);
+    }
+    else if (engine == DriveSpeed1.ENGINE_MAPPED) // memory-mapped files
+    {
+      /* Mapping for writing needs a channel that can read and write.  New
+      files can grow by mapping past the end; existing files can't. */
 
-    /* Check that we still have a valid drive folder for writing files. */
+      if (access == DriveSpeed1.FILE_CREATE) // create new or replace old
+      {
+        channel = FileChannel.open(fp.toPath(), StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+        mappedLimit = Long.MAX_VALUE; // file grows as we map more windows
+      }
+      else                        // read or write existing file
+      {
+        channel = (access == DriveSpeed1.FILE_UPDATE)
+          ? FileChannel.open(fp.toPath(), StandardOpenOption.READ,
+            StandardOpenOption.WRITE)
+          : FileChannel.open(fp.toPath(), StandardOpenOption.READ);
+        mappedLimit = channel.size(); // can't map past end of file
+      }
+    }
+    else if (engine == DriveSpeed1.ENGINE_ASYNC) // many requests in flight
+    {
+      if (access == DriveSpeed1.FILE_CREATE) // create new or replace old
+        async = AsynchronousFileChannel.open(fp.toPath(),
+          StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE);
+      else if (access == DriveSpeed1.FILE_UPDATE) // write existing file
+        async = AsynchronousFileChannel.open(fp.toPath(),
+          StandardOpenOption.WRITE);
+      else                        // read existing file
+        async = AsynchronousFileChannel.open(fp.toPath(),
+          StandardOpenOption.READ);
+      asyncLimit = async.size();  // reading stops at end of file
+    }
+    else if (engine == DriveSpeed1.ENGINE_RAF) // RandomAccessFile for all
+    {
+      if (access == DriveSpeed1.FILE_CREATE) // create new or replace old
+      {
+        update = new RandomAccessFile(fp, "rw");
+        update.setLength(0);      // "rw" mode doesn't truncate
+      }
+      else if (fp.isFile() == false) // "rw" mode would create a missing file
+        throw new FileNotFoundException(fp.getPath());
+      else
+        update = new RandomAccessFile(fp,
+          ((access == DriveSpeed1.FILE_UPDATE) ? "rw" : "r"));
+    }
+    else if (access == DriveSpeed1.FILE_CREATE) // byte stream for writing
+      out = new FileOutputStream(fp); // we do our own buffering
+    else if (access == DriveSpeed1.FILE_UPDATE) // random access, no truncate
+    {
+      if (fp.isFile() == false)   // "rw" mode would create a missing file
+        throw new FileNotFoundException(fp.getPath());
+      update = new RandomAccessFile(fp, "rw");
+    }
+    else                          // byte stream for reading
+      inp = new FileInputStream(fp); // we do our own buffering
+  }
 
-    checkDriveFolder();           // get someone else to check the folder
-    if (driveSelection == null)   // if there was something wrong with folder
-      return;                     // our "Start" button now disabled by check
+  /* give the async engine its requests and the file number for checking
+  data; ignored by other engines */
 
-    /* Create a data buffer of the correct size, as chosen by the user.  Small
-    buffer sizes can cause excessive system overhead, and must be big enough to
-    guarantee an error if the disk is full: some file systems store very small
-    files inside the directory structure, around 728 bytes or less for NTFS. */
+  public void attach(DriveSpeed1Queue queue, int fileNumber)
+  {
+    this.fileNumber = fileNumber;
+    this.queue = queue;
+    if (queue != null)            // no failed requests for this file yet
+      queue.failed = Long.MAX_VALUE;
+  }
 
-    if (buffer1Kbutton.isSelected()) { bufferSize = 0x400; } // 1 KB
-    else if (buffer2Kbutton.isSelected()) { bufferSize = 0x800; } // 2 KB
-    else if (buffer4Kbutton.isSelected()) { bufferSize = 0x1000; } // 4 KB
-    else if (buffer8Kbutton.isSelected()) { bufferSize = 0x2000; } // 8 KB
-    else if (buffer16Kbutton.isSelected()) { bufferSize = 0x4000; } // 16 KB
-    else if (buffer32Kbutton.isSelected()) { bufferSize = 0x8000; } // 32 KB
-    else if (buffer64Kbutton.isSelected()) { bufferSize = 0x10000; } // 64 KB
-    else if (buffer128Kbutton.isSelected()) { bufferSize = 0x20000; } // 128 KB
-    else if (buffer256Kbutton.isSelected()) { bufferSize = 0x40000; } // 256 KB
-    else if (buffer512Kbutton.isSelected()) { bufferSize = 0x80000; } // 512 KB
-    else if (buffer1Mbutton.isSelected()) { bufferSize = 0x100000; } // 1 MB
-    else if (buffer2Mbutton.isSelected()) { bufferSize = 0x200000; } // 2 MB
-    else if (buffer4Mbutton.isSelected()) { bufferSize = 0x400000; } // 4 MB
-    else if (buffer8Mbutton.isSelected()) { bufferSize = 0x800000; } // 8 MB
-    else if (buffer16Mbutton.isSelected()) { bufferSize = 0x1000000; } // 16 MB
-    else if (buffer32Mbutton.isSelected()) { bufferSize = 0x2000000; } // 32 MB
-    else if (buffer64Mbutton.isSelected()) { bufferSize = 0x4000000; } // 64 MB
-    else if (buffer128Mbutton.isSelected()) { bufferSize = 0x8000000; } // 128 MB
-    else if (buffer256Mbutton.isSelected()) { bufferSize = 0x10000000; } // 256 MB
-    else if (buffer512Mbutton.isSelected()) { bufferSize = 0x20000000; } // 512 MB
-    else { bufferSize = 0x40000; } // 256 KB (again)
+  /* close file, ignoring errors */
 
-    try { buffer = new byte[bufferSize]; } // allocate the data buffer
-    catch (OutOfMemoryError oome) // some size options can be too big
+  public void close()
+  {
+    try
     {
-      JOptionPane.showMessageDialog(mainFrame,
-        ("Not enough memory for a data buffer of "
-        + formatComma.format(bufferSize)
-        + " bytes.\nChoose a smaller buffer or increase the Java heap size with\nthe -Xmx option on the command line."));
-      return;                     // act like nothing ever happened
+      if (async != null)          // async engine may have requests in flight
+      {
+        try { queue.finish(); }   // wait for all requests to finish
+        finally { async.close(); } // close file, even after an error
+      }
+      if (mapped != null)         // memory-mapped file has a current window
+      {
+        if (access != DriveSpeed1.FILE_READ) // flush changes to drive
+          mapped.force();
+        unmapWindow();            // release mapping before truncating file
+      }
+      if ((engine == DriveSpeed1.ENGINE_MAPPED)
+        && (access == DriveSpeed1.FILE_CREATE)) // mapping may extend file
+      {
+        channel.truncate(streamPosition); // cut back to bytes written
+      }
+      else if ((engine == DriveSpeed1.ENGINE_MAPPED)
+        && (access == DriveSpeed1.FILE_UPDATE)) // earlier windows not forced
+      {
+        channel.force(false);     // flush all changed pages to drive
+      }
+      if (channel != null) channel.close();
+      if (inp != null) inp.close();
+      if (out != null) out.close();
+      if (update != null) update.close();
     }
-    for (i = 0; i < bufferSize; i ++)
-      buffer[i] = 0x00;           // fill buffer with binary zeros
-
-    /* Find the maximum number of bytes to write, a total for all temporary
-    files.  Go back in history for smaller maximums.  Java 1.4.2 was first
-    released in June 2003, if you run Windows 98 and need to only partially
-    test 1.44 MB floppy disks! */
+    catch (IOException ioe) { /* ignore errors */ }
+  }
 
-    if (file1Mbutton.isSelected()) { maxDataBytes = 0x100000L; } // 1 MB
-    else if (file10Mbutton.isSelected()) { maxDataBytes = 0xA00000L; } // 10 MB
-    else if (file100Mbutton.isSelected()) { maxDataBytes = 0x6400000L; } // 100 MB
-    else if (file1Gbutton.isSelected()) { maxDataBytes = 0x40000000L; } // 1 GB
-    else if (file10Gbutton.isSelected()) { maxDataBytes = 0x280000000L; } // 10 GB
-    else if (file100Gbutton.isSelected()) { maxDataBytes = 0x1900000000L; } // 100 GB
-    else if (file1Tbutton.isSelected()) { maxDataBytes = 0x10000000000L; } // 1 TB
-    else if (file10Tbutton.isSelected()) { maxDataBytes = 0xA0000000000L; } // 10 TB
-    else if (file100Tbutton.isSelected()) { maxDataBytes = 0x640000000000L; } // 100 TB
-    else if (file1Pbutton.isSelected()) { maxDataBytes = 0x4000000000000L; } // 1 PB
-    else if (file10Pbutton.isSelected()) { maxDataBytes = 0x28000000000000L; } // 10 PB
-    else if (file100Pbutton.isSelected()) { maxDataBytes = 0x190000000000000L; } // 100 PB
-    else if (file1Ebutton.isSelected()) { maxDataBytes = 0x1000000000000000L; } // 1 EB
-    else { maxDataBytes = MAX_FILE_SIZE; } // safe positive 64-bit integer
+  /* make sure that the current memory-mapped window has a file position */
 
-    /* Disable the "Start" button until we are done, and enable a "Cancel"
-    button in case our secondary thread runs for a long time and the user
-    panics. */
+  void mapWindow(long position) throws IOException
+  {
+    long size;                    // number of bytes in new window
+    long start;                   // file position of new window
 
-    cancelButton.setEnabled(true); // enable button to cancel this processing
-    cancelButton.requestFocusInWindow(); // give keyboard focus to button
-    cancelFlag = false;           // but don't cancel unless user complains
-    deleteFlag = true;            // we should delete our temporary files
-    driveFolderButton.setEnabled(false); // disable "Drive Folder" button
-    eraseState = ERASE_NONE;      // we are not reading or writing data
-    progressBar.setString("");    // empty string, not built-in percent
-    progressBar.setValue(0);      // and clear any previous status value
-    readSpeedText.setText(NO_SPEED_TEXT); // clear previous read speed
-    startButton.setEnabled(false); // suspend "Start" until we are done
-    totalBytesWritten = 0;        // no bytes written yet
-    writeSpeedText.setText(NO_SPEED_TEXT); // clear previous write speed
+    if ((mapped != null) && (position >= mappedStart)
+      && (position < (mappedStart + mapped.capacity())))
+    {
+      return;                     // current window is good
+    }
+    if (mapped != null)           // release old window first
+    {
+      if (access == DriveSpeed1.FILE_CREATE) // writing in sequence
+        mapped.force();           // flush finished window to drive
+      unmapWindow();              // updates are forced when file is closed
+    }
+    start = position - (position % DriveSpeed1.windowSize); // aligned start
+    size = Math.min(DriveSpeed1.windowSize, (mappedLimit - start));
+    mapped = channel.map(((access == DriveSpeed1.FILE_READ)
+      ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE),
+      start, size);
+    mappedStart = start;          // first file position in this window
+    mappedView = mapped.duplicate(); // for copying parts of the window
+  }
 
-    /* Create as many temporary files as necessary to get the total number of
-    bytes selected by the user. */
+  /* read up to one buffer full, return number of bytes, or -1 at end */
 
-    bytesAllFiles = 0;            // no bytes written yet
-    fileNumber = 0;               // no files created yet
-    ignoreDelayMillis = ignoreCheckbox.isSelected() ? (1000
-      * Integer.parseInt((String) ignoreDialog.getSelectedItem())) : 0;
-    ignoreStartBytes = ignoreStopBytes = -1; // no data yet after delays
-    ignoreStartClock = ignoreStopClock = startTime = System.currentTimeMillis();
-                                  // starting clock time in milliseconds
-    userBytesPrev = 0;            // no bytes reported to user yet
-    userBytesRate = -1.0;         // no current or previous bytes per second
+  public int read(ByteBuffer buffer, long position) throws IOException
+  {
+    int length;                   // number of bytes to copy from one window
+    int offset;                   // index of first byte in window
+    DriveSpeed1Request request;   // async request, idle or in flight
+    int result;                   // number of bytes read, or -1 at end
 
-    eraseState = ERASE_WRITE;     // we are now writing data
-    queueClear();                 // clear queue of pending clock data
-    updateProgressBar();          // force the progress bar to update
-    statusTimer.start();          // start updating the status message
-    while ((cancelFlag == false)  // while the user hasn't cancelled us
-      && (fileNumber < MAX_FILE_COUNT) // and we don't have too many files
-      && (bytesAllFiles < maxDataBytes)) // and there are more bytes to write
+    if (async != null)            // start a request, don't wait for data
     {
-      /* Create one file and fill it with zeros.  We don't report errors to the
-      user, because we assume that all errors mean "disk is full" or a file has
-      reached the maximum size. */
-
-      bytesThisFile = 0;          // no bytes written to this file yet
-      fileNumber ++;              // one more temporary file will be created
-      fp = new File(driveSelection, createFilename(fileNumber)); // from name
-      try { out = new FileOutputStream(fp); } // we do our own buffering
-      catch (FileNotFoundException fnfe) // the only documented exception
-      {
-        fileNumber --;            // we failed, so don't count this file
-        break;                    // exit early from outer <while> loop
-      }
-      while ((cancelFlag == false) && (bytesAllFiles < maxDataBytes))
+      if (position >= asyncLimit) // is there anything left to read?
+        return(-1);               // no, this is the end of the file
+      result = (int) Math.min(buffer.capacity(), (asyncLimit - position));
+      request = queue.take();     // waits while all requests are in flight
+      request.buffer.clear();     // read into request's own buffer
+      request.buffer.limit(result);
+      request.start(async, fileNumber, position, false);
+    }
+    else if (engine == DriveSpeed1.ENGINE_MAPPED) // copy from memory mapping
+    {
+      if (position >= mappedLimit) // is there anything left to read?
+        return(-1);               // no, this is the end of the file
+      buffer.clear();             // read into entire buffer
+      try                         // page faults are where reading happens
       {
-        try { out.write(buffer); } // write one buffer full of constant data
-        catch (IOException ioe)   // assume all errors are "disk may be full"
+        while (buffer.hasRemaining() && (position < mappedLimit))
         {
-          break;                  // exit early from inner <while> loop
+          mapWindow(position);    // make sure position is in window
+          offset = (int) (position - mappedStart);
+          length = Math.min(buffer.remaining(), (mapped.capacity() - offset));
+          mappedView.clear();     // select bytes to copy from window
+          mappedView.position(offset);
+          mappedView.limit(offset + length);
+          buffer.put(mappedView); // copy from memory mapping
+          position += length;     // next position in file
         }
-        bytesAllFiles += bufferSize; // add to total bytes done all files
-        bytesThisFile += bufferSize; // add to bytes done for current file
       }
-      try { out.close(); } catch (IOException ioe) { /* ignore errors */ }
-      if (bytesThisFile < bufferSize) // small files may mean disk is full
-        break;                    // exit early from outer <while> loop
+      catch (InternalError ie)    // memory access fault, not an exception
+      {
+        throw new IOException("memory-mapped read failed: " + ie.getMessage());
+      }
+      result = buffer.position(); // number of bytes read
     }
-    eraseState = ERASE_NONE;      // we are not reading or writing data
-    statusTimer.stop();           // stop updating status message by timer
-    totalFilesCreated = fileNumber; // remember total number of files created
-    if (cancelFlag == false)      // only if the user hasn't cancelled us
+    else if (channel != null)     // file channels have positional reads
     {
-      updateProgressBar();        // force the progress bar to update
-      totalBytesWritten = bytesAllFiles; // remember total bytes written
+      buffer.clear();             // read into entire buffer
+      result = channel.read(buffer, position);
     }
-
-    /* Calculate the final average write speed. */
-
-    if (cancelFlag == false)      // only if the user hasn't cancelled us
+    else if (update != null)      // random access for byte streams
     {
-      finalBytes = ignoreStopBytes - ignoreStartBytes; // number of data bytes
-      finalClock = ignoreStopClock - ignoreStartClock; // elapsed clock time
-      if ((finalBytes > 0) && (finalClock > 0)) // don't divide by zero
-        writeSpeedText.setText(formatSpeed((double) finalBytes * 1000.0
-          / (double) finalClock));
-      else
-        writeSpeedText.setText(TOO_FAST_TEXT); // can't report accurate speed
+      if (position != streamPosition) // only if caller has skipped around
+        update.seek(position);
+      result = update.read(buffer.array(), buffer.arrayOffset(),
+        buffer.capacity());
+      if (result > 0) streamPosition = position + result;
+    }
+    else                          // byte streams are mostly sequential
+    {
+      if (position != streamPosition) // only if caller has skipped around
+        inp.getChannel().position(position);
+      result = inp.read(buffer.array(), buffer.arrayOffset(),
+        buffer.capacity());
+      if (result > 0) streamPosition = position + result;
     }
+    return(result);
+  }
 
-    /* Java has no standard way of invalidating disk caches in hardware or the
-    underlying operating system.  If the amount of data written is smaller than
-    the physical memory (RAM) on the computer, data that we read may be fetched
-    from the cache and not from the drive.  For removable media, one possible
-    solution is a pop-up dialog that asks the user to remove (eject) and then
-    reinsert the media. */
+  /* force written data out to the drive (fsync), or throw an exception */
 
-    if ((cancelFlag == false) && promptCheckbox.isSelected())
+  public void sync() throws IOException
+  {
+    if (async != null)            // finish requests in flight, then sync
     {
-      JOptionPane.showMessageDialog(mainFrame,
-        ("If your drive is on removable media, then:\n"
-        + "1. Remove (eject) the drive normally;\n"
-        + "2. Reinsert the drive; and\n"
-        + "3. Click the OK button here."));
+      queue.finish();
+      async.force(false);         // data, not all metadata
     }
+    if (mapped != null)           // current memory-mapped window
+      mapped.force();
+    if (channel != null)          // file channels, including mapped files
+      channel.force(false);       // data, not all metadata
+    if (out != null)              // byte stream for writing
+      out.getFD().sync();
+    if (update != null)           // random access for byte streams
+      update.getFD().sync();
+  }
 
-    /* Read the files that we just created.  All errors are unexpected and will
-    be reported in a pop-up dialog box. */
+  /* release current memory-mapped window without waiting for the garbage
+  collector, which may be much too slow when many windows are mapped; if the
+  cleaner can't be used, say so once and leave all windows to the collector */
 
-    if (cancelFlag == false)      // only if the user hasn't cancelled us
+  void unmapWindow()
+  {
+    MappedByteBuffer old = mapped; // window that we are releasing
+    mapped = null;                // nobody may use this window again
+    mappedView = null;
+    if (cleanerFailed)            // don't try again for every window
+      return;
+    try
     {
-      bytesAllFiles = 0;          // no bytes read yet
-      fileNumber = 1;             // start with first file we created
-      ignoreDelayMillis = ignoreCheckbox.isSelected() ? (1000
-        * Integer.parseInt((String) ignoreDialog.getSelectedItem())) : 0;
-      ignoreStartBytes = ignoreStopBytes = -1; // no data yet after delays
-      ignoreStartClock = ignoreStopClock = startTime = System.currentTimeMillis();
-                                  // starting clock time in milliseconds
-      userBytesPrev = 0;          // no bytes reported to user yet
-      userBytesRate = -1.0;       // no current or previous bytes per second
-
-      eraseState = ERASE_READ;    // we are now reading data
-      queueClear();               // clear queue of pending clock data
-      updateProgressBar();        // force the progress bar to update
-      statusTimer.start();        // start updating the status message
-      while ((cancelFlag == false) // while the user hasn't cancelled us
-        &&  (fileNumber <= totalFilesCreated)) // and there are more files
+      if (cleanerMethod == null)  // find the cleaner the first time only
+      {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field field = unsafeClass.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        unsafeObject = field.get(null);
+        cleanerMethod = unsafeClass.getMethod("invokeCleaner",
+          ByteBuffer.class);
+      }
+      cleanerMethod.invoke(unsafeObject, old);
+    }
+    catch (Exception e)           // older Java, or access is not allowed
+    {
+      synchronized (DriveSpeed1File.class) // report once, all threads
       {
-//      bytesThisFile = 0;        // no bytes read from this file yet
-        fp = new File(driveSelection, createFilename(fileNumber));
-        try                       // general try-catch for all read errors
+        if (cleanerFailed == false)
         {
-          inp = new FileInputStream(fp); // we do our own buffering
-          while ((cancelFlag == false) && ((i = inp.read(buffer)) > 0))
-          {
-            bytesAllFiles += i;   // add to total bytes done all files
-//          bytesThisFile += i;   // add to bytes done for current file
-          }
-          inp.close();            // close the input file
+          cleanerFailed = true;   // garbage collector will unmap
+          DriveSpeed1.putResult("mapped.unmap", ("by garbage collector only ("
+            + e.getClass().getName() + ")")); // windows stay mapped longer
         }
-        catch (IOException ioe)   // all errors are bad news when reading
+      }
+    }
+  }
+
+  /* write one full buffer, or throw an exception */
+
+  public void write(ByteBuffer buffer, long position) throws IOException
+  {
+    int length;                   // number of bytes to copy into one window
+    int limit;                    // saved limit for <buffer>
+    int offset;                   // index of first byte in window
+    DriveSpeed1Request request;   // async request, idle or in flight
+
+    if (async != null)            // start a request, don't wait for it
+    {
+      /* Each request has its own buffer with the data pattern, filled before
+      timing starts, so the caller's data isn't copied: only the length is
+      the same.  Block headers are marked here, as in markBlocks(). */
+
+      request = queue.take();     // waits while all requests are in flight
+      request.buffer.clear();     // same number of bytes as caller's buffer
+      request.buffer.limit(buffer.capacity());
+      if (DriveSpeed1.markFlag)   // block headers, unique or for checking
+        DriveSpeed1.markBlocks(request.buffer, fileNumber, position);
+      request.start(async, fileNumber, position, true);
+    }
+    else if (engine == DriveSpeed1.ENGINE_MAPPED) // copy into memory mapping
+    {
+      buffer.clear();             // write entire buffer
+      try                         // full disk is a memory fault, not an error
+      {
+        while (buffer.hasRemaining())
         {
-          JOptionPane.showMessageDialog(mainFrame, ("Read error on file "
-            + fp.getName()));     // not very helpful without ioe.getMessage()
-          break;                  // exit early from outer <while> loop
+          mapWindow(position);    // make sure position is in window
+          offset = (int) (position - mappedStart);
+          length = Math.min(buffer.remaining(), (mapped.capacity() - offset));
+          limit = buffer.limit(); // copy only what fits in this window
+          buffer.limit(buffer.position() + length);
+          mappedView.clear();     // select where bytes go in window
+          mappedView.position(offset);
+          mappedView.put(buffer); // copy into memory mapping
+          buffer.limit(limit);    // restore full buffer
+          position += length;     // next position in file
         }
-        fileNumber ++;            // now do the next temporary file
       }
-      statusTimer.stop();         // stop updating status message by timer
+      catch (InternalError ie)    // memory access fault, not an exception
+      {
+        throw new IOException("memory-mapped write failed: "
+          + ie.getMessage());     // probably disk is full
+      }
+      streamPosition = Math.max(streamPosition, position); // highest byte
     }
-    eraseState = ERASE_NONE;      // we are not reading or writing data
-    if (cancelFlag == false)      // only if the user hasn't cancelled us
+    else if (channel != null)     // file channels have positional writes
     {
-      updateProgressBar();        // force the progress bar to update
+      buffer.clear();             // write entire buffer
+      while (buffer.hasRemaining()) // system may not take all bytes at once
+        channel.write(buffer, (position + buffer.position()));
+    }
+    else if (update != null)      // random access for byte streams
+    {
+      if (position != streamPosition) // only if caller has skipped around
+        update.seek(position);
+      update.write(buffer.array(), buffer.arrayOffset(), buffer.capacity());
+      streamPosition = position + buffer.capacity();
     }
+    else                          // byte streams are mostly sequential
+    {
+      if (position != streamPosition) // only if caller has skipped around
+        out.getChannel().position(position);
+      out.write(buffer.array(), buffer.arrayOffset(), buffer.capacity());
+      streamPosition = position + buffer.capacity();
+    }
+  }
+
+} // end of DriveSpeed1File class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  DriveSpeed1Queue class
 
-    /* Calculate the final average read speed. */
+  This class holds the requests for one worker thread with the async engine.
+  Idle requests wait in a queue; taking one may wait for a request in flight
+  to finish, which limits the number in flight.  The first error from any
+  request is thrown by the next take() or finish().
+*/
 
-    if (cancelFlag == false)      // only if the user hasn't cancelled us
+class DriveSpeed1Queue
+{
+  int depth;                      // number of requests, idle or in flight
+  LongAdder driveBytes;           // byte counter for this worker's folder
+  volatile IOException error;     // first error from a request, or null
+  volatile long failed;           // lowest position of a failed request in
+                                  // ... current file, or Long.MAX_VALUE
+  java.util.concurrent.ArrayBlockingQueue<DriveSpeed1Request> idle;
+                                  // requests that aren't in flight
+  DriveSpeed1Latency latency;     // request times for this worker
+
+  /* constructor allocates one native buffer for each request */
+
+  public DriveSpeed1Queue(int depth, int size, DriveSpeed1Latency latency,
+    LongAdder driveBytes)
+  {
+    this.depth = depth;
+    this.driveBytes = driveBytes;
+    this.error = null;            // no errors yet
+    this.failed = Long.MAX_VALUE;
+    this.idle = new java.util.concurrent.ArrayBlockingQueue<
+      DriveSpeed1Request>(depth);
+    this.latency = latency;
+    for (int i = 0; i < depth; i ++)
+      idle.add(new DriveSpeed1Request(this, size));
+  }
+
+  /* throw the first error, if any, and forget it */
+
+  void check() throws IOException
+  {
+    IOException result = error;   // may be changed by completion handlers
+    if (result != null)
     {
-      finalBytes = ignoreStopBytes - ignoreStartBytes; // number of data bytes
-      finalClock = ignoreStopClock - ignoreStartClock; // elapsed clock time
-      if ((finalBytes > 0) && (finalClock > 0)) // don't divide by zero
-        readSpeedText.setText(formatSpeed((double) finalBytes * 1000.0
-          / (double) finalClock));
-      else
-        readSpeedText.setText(TOO_FAST_TEXT); // can't report accurate speed
+      error = null;               // report each error only once
+      throw result;
     }
+  }
+
+  /* wait until all requests have finished */
+
+  public void finish() throws IOException
+  {
+    DriveSpeed1Request[] all = new DriveSpeed1Request[depth];
+    for (int i = 0; i < depth; i ++)
+      all[i] = waitIdle();        // requests come back as they finish
+    for (int i = 0; i < depth; i ++)
+      idle.add(all[i]);           // all are idle again
+    check();                      // errors from the last requests
+  }
 
-    /* Delete our temporary files.  We ignore most errors here. */
+  /* return an idle request, waiting if all are in flight */
 
-    if (deleteFlag)               // should we delete our temporary files?
+  public DriveSpeed1Request take() throws IOException
+  {
+    DriveSpeed1Request result = waitIdle(); // idle request
+    if (error != null)            // an earlier request has failed
     {
-      for (i = 1; i <= totalFilesCreated; i ++) // for each file we created
-      {
-        fp = new File(driveSelection, createFilename(i)); // from file name
-        fp.delete();              // try to delete this file, ignore errors
-      }
+      idle.add(result);           // don't lose this request
+      check();                    // always throws an exception
     }
+    return(result);
+  }
 
-    /* We are done.  Turn off the "Cancel" button and allow the user to click
-    the "Start" button again. */
+  /* wait for one idle request, without checking for errors; only the worker
+  thread comes here, so it records the request time, the same as for other
+  engines */
 
-    cancelButton.setEnabled(false); // disable "Cancel" button
-    driveFolderButton.setEnabled(true); // enable "Drive Folder" button
-    startButton.setEnabled(true); // enable "Start" button
-    startButton.requestFocusInWindow(); // give keyboard focus to button
-    mainFrame.repaint();          // sometimes gets behind after all updating
+  DriveSpeed1Request waitIdle()
+  {
+    DriveSpeed1Request result;    // request that is now idle
 
-  } // end of startErase() method
+    while (true)                  // we must get a request back
+    {
+      try { result = idle.take(); }
+      catch (InterruptedException ie) { continue; } // ignore interruptions
+      if (result.elapsed >= 0)    // finished, not failed or never used
+        latency.record(result.elapsed);
+      result.elapsed = -1;        // record each request time only once
+      return(result);
+    }
+  }
+
+} // end of DriveSpeed1Queue class
 
+// ------------------------------------------------------------------------- //
 
 /*
-  updateProgressBar() method
+  DriveSpeed1Request class
 
-  Update the progress bar (status timer) at scheduled clock ticks, so that the
-  text doesn't change too quickly, and the progress bar doesn't advance too
-  smoothly.  Since this method runs in a separate timer thread (independent),
-  we are careful to work with consistent local copies of global variables, and
-  to set text fields as single, complete strings.
+  This class is one read or write request for the async engine, with its own
+  native buffer.  The completion handler runs in a thread owned by Java: it
+  continues a partial transfer, then adds to the shared byte counter, saves
+  the request time for the worker thread to record, checks data if the user
+  asked for that, and returns the request to the idle queue.
 */
-  static void updateProgressBar()
+
+class DriveSpeed1Request implements CompletionHandler<Integer, Object>
+{
+  ByteBuffer buffer;              // native buffer for this request
+  AsynchronousFileChannel channel; // file for request in flight
+  java.util.zip.CRC32C crc;       // checksum for verifying data, or null
+  long elapsed;                   // nanoseconds for finished request, or -1
+  int fileNumber;                 // temporary file number, for checking
+  long position;                  // file position of first byte in buffer
+  DriveSpeed1Queue queue;         // where this request goes when idle
+  long started;                   // nanosecond clock when request started
+  boolean writing;                // true for writes, false for reads
+
+  /* constructor allocates the native buffer */
+
+  public DriveSpeed1Request(DriveSpeed1Queue queue, int size)
   {
-    StringBuffer buffer;          // for creating complete text strings
-    long clock = System.currentTimeMillis(); // system time in milliseconds
-    long done = bytesAllFiles;    // get local copy so it doesn't change
-    double percent;               // for calculating percent complete
-    double rate;                  // current (most recent) bytes per second
-    String speed;                 // current data rate for reading or writing
-    long total = totalBytesWritten; // get local copy so it doesn't change
+    this.buffer = ByteBuffer.allocateDirect(size);
+    this.crc = DriveSpeed1.verifyFlag ? new java.util.zip.CRC32C() : null;
+    this.elapsed = -1;            // no request time yet
+    this.queue = queue;
+  }
 
-    /* Basic information for the progress bar and status text.  This is mostly
-    independent of reading and writing, except that we can infer the state. */
+  /* called by Java when all or part of the transfer is done */
 
-    buffer = new StringBuffer();  // faster than String for appends
-    buffer.append(formatComma.format(done));
-    if ((total > 0) || ((total = maxDataBytes) < MAX_FILE_SIZE))
-    {                             // if reading, or writing with a limit
-      buffer.append(" bytes of ");
-      buffer.append(formatComma.format(total));
-      if (done <= total)          // can we calculate percent done?
-      {
-        percent = (100.0 * (double) done) / (double) total;
-        progressBar.setValue((int) percent); // set size of progress bar
-        buffer.append(" or ");
-        buffer.append(formatPointOne.format(percent));
-        buffer.append("%");
-      }
+  public void completed(Integer result, Object unused)
+  {
+    int length;                   // total bytes transferred
+
+    if ((result > 0) && buffer.hasRemaining()) // partial, start the rest
+    {
+      try { next(); return; }
+      catch (RuntimeException re) { failed(re, unused); return; }
     }
-    else                          // else writing without a limit
+    length = buffer.position();   // all bytes, or up to end of file
+    elapsed = System.nanoTime() - started; // worker records this later
+    if ((writing == false) && (crc != null)) // check only whole blocks
+      DriveSpeed1.checkBlocks(buffer, (length - (length
+        % DriveSpeed1.VERIFY_BLOCK)), fileNumber, position, crc);
+    DriveSpeed1.bytesAllFiles.add(length); // add to total bytes all files
+    queue.driveBytes.add(length); // and this worker's folder
+    if (writing)                  // mixed tests also count writes alone
+      DriveSpeed1.writeBytes.add(length);
+    queue.idle.add(this);         // request is idle again
+  }
+
+  /* called by Java when the transfer fails */
+
+  public void failed(Throwable exc, Object unused)
+  {
+    synchronized (queue)          // rare, but handlers may fail together
     {
-      buffer.append(" bytes written, unknown total");
+      if (queue.error == null)    // remember only the first error
+        queue.error = (exc instanceof IOException) ? ((IOException) exc)
+          : new IOException(exc.toString());
+      if (writing)                // file isn't good from here on
+        queue.failed = Math.min(queue.failed, position);
     }
-    progressBar.setString(buffer.toString()); // set text for progress bar
+    queue.idle.add(this);         // request is idle again
+  }
 
-    /* Update the current speed.  A weighted average with a short delay shows
-    smoother values.  Since the numbers shown here are transient, assume that
-    TIMER_DELAY is a good measure of time between calls to this method.  Don't
-    calculate an offset from the system clock, which would be slower and might
-    allow for division by zero. */
+  /* start or continue the transfer at the current buffer position */
 
-    rate = (double) (done - userBytesPrev) * 1000.0 / TIMER_DELAY;
-    if (userBytesRate < 0.0)      // were there previous bytes per second?
-      userBytesRate = rate;       // no, fix calculation with current rate
-    speed = formatSpeed((rate * 0.7) + (userBytesRate * 0.3));
-                                  // scale into nice units per second
-    if (eraseState == ERASE_READ) // if we are actively reading
-      readSpeedText.setText(speed);
-    else if (eraseState == ERASE_WRITE) // if we are actively writing
-      writeSpeedText.setText(speed);
-    userBytesPrev = done;         // remember previously reported amount
-    userBytesRate = rate;         // remember current bytes per second
+  void next()
+  {
+    if (writing)
+      channel.write(buffer, (position + buffer.position()), null, this);
+    else
+      channel.read(buffer, (position + buffer.position()), null, this);
+  }
+
+  /* start a new transfer; the caller has already set up the buffer */
+
+  public void start(AsynchronousFileChannel channel, int fileNumber,
+    long position, boolean writing)
+  {
+    this.channel = channel;
+    this.fileNumber = fileNumber;
+    this.position = position;
+    this.writing = writing;
+    elapsed = -1;                 // not finished yet
+    started = System.nanoTime();  // time the whole request
+    try { next(); }
+    catch (RuntimeException re) { failed(re, null); } // such as closed file
+  }
+
+} // end of DriveSpeed1Request class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  DriveSpeed1Worker class
+
+  This class is one worker thread for reading or writing temporary files, and
+  calls a static method in the main class with its task and index number.  For
+  the "files" test, it is one task for a thread pool, and the index is a folder
+  number.
+*/
+
+class DriveSpeed1Worker implements Runnable
+{
+  int index;                      // worker number, from zero
+  int task;                       // what this worker does
+
+  /* constructor saves task and index number */
+
+  public DriveSpeed1Worker(int task, int index)
+  {
+    this.index = index;
+    this.task = task;
+  }
 
-    /* Don't count data bytes during the first and last few seconds of a read/
-    write pass, to avoid our final averages being skewed by some common forms
-    of disk caching. */
+  /* separate heavy-duty processing thread */
 
-    if ((clock - startTime) < ignoreDelayMillis)
+  public void run()
+  {
+    if ((task >= DriveSpeed1.WORKER_FILES_CREATE) // small files, one folder
+      && (task <= DriveSpeed1.WORKER_FILES_DELETE))
     {
-      /* Do nothing during a starting delay before we collect information. */
+      DriveSpeed1.filesWorker(index, task);
+      return;                     // not timed for each drive folder
     }
-    else
+    else if (task == DriveSpeed1.WORKER_MIXED) // writers, then readers
     {
-      /* This clock event is after our starting delay.  Save the first as our
-      starting byte count and time.  Add each to a list of pending clock data,
-      then peel off older information that may now be a valid stopping time. */
-
-      if (ignoreStartBytes < 0)   // first information after starting delay?
+      boolean writing = index < DriveSpeed1.threadCount;
+      try
       {
-        ignoreStartBytes = done;  // ignore all data bytes before now
-        ignoreStartClock = clock; // remember when we started good data
+        if ((writing ? (100 - DriveSpeed1.mixPercent)
+          : DriveSpeed1.mixPercent) > 0) // only if this side does anything
+        {
+          DriveSpeed1.randomWorker(index, writing);
+        }
       }
-      queueAdd(done, clock);      // add bytes, time to pending clock data
-      while ((queueItemCount > 0) // look at older items in pending clock data
-        && ((clock - queueDataClock[queueFirstIndex]) >= ignoreDelayMillis))
+      finally                     // other side mustn't wait for us
       {
-        ignoreStopBytes = queueDataBytes[queueFirstIndex]; // new byte count
-        ignoreStopClock = queueDataClock[queueFirstIndex]; // new clock time
-        queueDelete();            // delete this item from pending clock data
+        (writing ? DriveSpeed1.mixWriters : DriveSpeed1.mixReaders)
+          .decrementAndGet();
       }
     }
-  } // end of updateProgressBar() method
+    else if (task == DriveSpeed1.WORKER_READ)
+      DriveSpeed1.readWorker(index);
+    else if (task == DriveSpeed1.WORKER_RANDOM_READ)
+      DriveSpeed1.randomWorker(index, false);
+    else if (task == DriveSpeed1.WORKER_RANDOM_WRITE)
+      DriveSpeed1.randomWorker(index, true);
+    else if (task == DriveSpeed1.WORKER_WRITE)
+      DriveSpeed1.writeWorker(index);
+    else                          // fault in program logic, not by user
+      System.err.println("Error in DriveSpeed1Worker: unknown task " + task);
+    DriveSpeed1.workerDone(index); // ending time for this drive folder
+  }
 
+} // end of DriveSpeed1Worker class
+
+// ------------------------------------------------------------------------- //
 
 /*
-  userButton() method
+  DriveSpeed1Graph class
 
-  This method is called by our action listener actionPerformed() to process
-  buttons, in the context of the main DriveSpeed1 class.
+  This class draws a graph of write and read speeds versus buffer size for a
+  sweep, in the graphical interface only.  Sizes are powers of two, so they are
+  equally spaced across the graph (a logarithmic scale).
 */
-  static void userButton(ActionEvent event)
+
+class DriveSpeed1Graph extends JPanel
+{
+  static final int MARGIN = 50;   // pixels around the graph for labels
+  private static final long serialVersionUID = 1L; // for Serializable
+
+  double[] readSpeeds;            // bytes per second, or negative
+  int[] sizes;                    // buffer or block size in bytes
+  double[] writeSpeeds;           // bytes per second, or negative
+
+  /* constructor saves the sweep results */
+
+  public DriveSpeed1Graph(int[] sizes, double[] writeSpeeds,
+    double[] readSpeeds)
   {
-    Object source = event.getSource(); // where the event came from
-    if (source == cancelButton)   // "Cancel" button
-    {
-      int reply = JOptionPane.showConfirmDialog(mainFrame,
-        "Cancel button clicked during test.\nDelete temporary files first?");
-      if (reply == JOptionPane.CANCEL_OPTION)
-        return;                   // do nothing and ignore Cancel button
-      else                        // otherwise the answer was "Yes" or "No"
-        deleteFlag = (reply == JOptionPane.YES_OPTION);
-      cancelButton.setEnabled(false); // don't allow multiple cancels
-      cancelFlag = true;          // tell other threads that all work stops now
-    }
-    else if (source == driveFolderButton) // "Drive Folder" button
+    this.readSpeeds = readSpeeds;
+    this.sizes = sizes;
+    this.writeSpeeds = writeSpeeds;
+    setBackground(Color.WHITE);
+    setPreferredSize(new Dimension(600, 350));
+  }
+
+  /* format a size in bytes as a short label: 4K, 1M, etc */
+
+  static String formatSize(int size)
+  {
+    if ((size >= 0x100000) && ((size % 0x100000) == 0))
+      return((size / 0x100000) + "M");
+    if ((size >= 0x400) && ((size % 0x400) == 0))
+      return((size / 0x400) + "K");
+    return(String.valueOf(size));
+  }
+
+  /* draw one line for write or read speeds, skipping missing speeds */
+
+  void drawSpeeds(Graphics g, double[] speeds, double best, Color color)
+  {
+    int prevX = -1, prevY = -1;   // previous point, or negative
+    g.setColor(color);
+    for (int i = 0; i < speeds.length; i ++)
     {
-      fileChooser.resetChoosableFileFilters(); // remove any existing filters
-      fileChooser.setDialogTitle("Select Writeable Drive Folder...");
-      fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
-      fileChooser.setMultiSelectionEnabled(false); // allow only one folder
-      if (fileChooser.showOpenDialog(mainFrame) == JFileChooser.APPROVE_OPTION)
-        driveSelection = fileChooser.getSelectedFile(); // correct Java object
-      checkDriveFolder();         // get someone else to check the folder
-      if (driveSelection != null) // if the folder is acceptable
+      if (speeds[i] < 0.0)        // no speed for this size
       {
-        progressBar.setString("Click <Start> button when ready to begin.");
-        progressBar.setValue(0);  // and clear any previous status value
-        startButton.setEnabled(true); // we are good to go
+        prevX = -1;               // start a new line after the gap
+        continue;
       }
+      int x = xPosition(i);
+      int y = getHeight() - MARGIN - (int) Math.round(speeds[i] / best
+        * (getHeight() - (2 * MARGIN)));
+      g.fillOval((x - 3), (y - 3), 7, 7); // mark the point
+      if (prevX >= 0) g.drawLine(prevX, prevY, x, y);
+      prevX = x;
+      prevY = y;
     }
-    else if (source == exitButton) // "Exit" button
-    {
-      System.exit(0);             // always exit with zero status from GUI
-    }
-    else if (source == ignoreDialog) // number of seconds to ignore
-    {
-      ignoreCheckbox.setSelected(true); // choosing a number forces selection
-    }
-    else if (source == startButton) // "Start" button
-    {
-      Thread th = new Thread(new DriveSpeed1User(), "eraseThread");
-      th.setPriority(Thread.MIN_PRIORITY); // use lowest priority in Java VM
-      th.start();                 // now run as separate thread to erase disk
-    }
-    else if (source == statusTimer) // update timer for status message text
+  }
+
+  /* paint the whole graph */
+
+  public void paintComponent(Graphics g)
+  {
+    double best = 1.0;            // best speed, avoids dividing by zero
+    int bottom = getHeight() - MARGIN; // y position of horizontal axis
+
+    super.paintComponent(g);
+    for (int i = 0; i < sizes.length; i ++)
+      best = Math.max(best, Math.max(readSpeeds[i], writeSpeeds[i]));
+    g.setColor(Color.BLACK);      // axes and labels
+    g.drawLine(MARGIN, MARGIN, MARGIN, bottom);
+    g.drawLine(MARGIN, bottom, (getWidth() - MARGIN), bottom);
+    g.drawString(DriveSpeed1.formatSpeed(best), 5, (MARGIN - 8));
+    g.drawString("0", (MARGIN - 15), bottom);
+    for (int i = 0; i < sizes.length; i ++)
     {
-      updateProgressBar();        // force the progress bar to update
+      int x = xPosition(i);
+      g.drawLine(x, bottom, x, (bottom + 4)); // tick mark
+      g.drawString(formatSize(sizes[i]), (x - 10), (bottom + 20));
     }
-    else                          // fault in program logic, not by user
+    drawSpeeds(g, writeSpeeds, best, Color.BLUE);
+    g.drawString("write", (getWidth() - MARGIN - 80), (MARGIN - 8));
+    drawSpeeds(g, readSpeeds, best, Color.RED);
+    g.drawString("read", (getWidth() - MARGIN - 30), (MARGIN - 8));
+  }
+
+  /* x position for the size at an index */
+
+  int xPosition(int index)
+  {
+    if (sizes.length < 2)         // only one size goes in the middle
+      return(getWidth() / 2);
+    return(MARGIN + (index * (getWidth() - (2 * MARGIN))
+      / (sizes.length - 1)));
+  }
+
+} // end of DriveSpeed1Graph class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  DriveSpeed1Latency class
+
+  This class is a histogram of request times in nanoseconds, with a fixed
+  number of buckets on a logarithmic scale: 16 buckets for each power of two,
+  so any time is within about 6% of its bucket.  Recording a time allocates no
+  memory and takes no locks, because each worker thread has its own histogram.
+  Histograms from all workers are merged at the end of a pass.
+*/
+
+class DriveSpeed1Latency
+{
+  static final int SUB_BITS = 4;  // log2 of buckets per power of two
+  static final int SUB_COUNT = 1 << SUB_BITS; // buckets per power of two
+  static final int BUCKET_COUNT = (64 - SUB_BITS) * SUB_COUNT;
+                                  // enough for any non-negative long
+
+  long[] counts;                  // number of times in each bucket
+  long maximum;                   // largest time recorded
+  long minimum;                   // smallest time recorded
+  long total;                     // number of times recorded
+
+  /* constructor creates an empty histogram */
+
+  public DriveSpeed1Latency()
+  {
+    counts = new long[BUCKET_COUNT]; // only memory we ever allocate
+    reset();                      // no times recorded yet
+  }
+
+  /* bucket number for a time: small times are exact, bigger times keep the
+  highest SUB_BITS bits after the leading one bit */
+
+  static int bucket(long value)
+  {
+    if (value < SUB_COUNT)        // small values have their own bucket
+      return((int) value);
+    int exponent = 63 - Long.numberOfLeadingZeros(value); // leading one bit
+    return(((exponent - SUB_BITS + 1) << SUB_BITS)
+      + (int) ((value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1)));
+  }
+
+  /* smallest time that goes into a bucket */
+
+  static long lowest(int bucket)
+  {
+    int group = bucket >>> SUB_BITS; // which power of two
+    if (group == 0)               // small values have their own bucket
+      return(bucket);
+    return(((long) (SUB_COUNT + (bucket & (SUB_COUNT - 1))))
+      << (group - 1));
+  }
+
+  /* add the times from another histogram to this one */
+
+  public void merge(DriveSpeed1Latency other)
+  {
+    for (int i = 0; i < BUCKET_COUNT; i ++)
+      counts[i] += other.counts[i];
+    maximum = Math.max(maximum, other.maximum);
+    minimum = Math.min(minimum, other.minimum);
+    total += other.total;
+  }
+
+  /* time that is greater than or equal to a fraction of all recorded times,
+  using the highest time in the bucket, but never more than the maximum */
+
+  public long percentile(double fraction)
+  {
+    long count = 0;               // number of times in buckets so far
+    long wanted = (long) Math.ceil(fraction * total); // how many times
+    for (int i = 0; i < BUCKET_COUNT; i ++)
     {
-      System.err.println("Error in userButton(): unknown ActionEvent: "
-        + event);                 // should never happen, so write on console
+      count += counts[i];
+      if ((count >= wanted) && (count > 0)) // found the bucket we want
+        return(Math.max(minimum, Math.min(maximum,
+          ((i + 1) < BUCKET_COUNT) ? (lowest(i + 1) - 1) : Long.MAX_VALUE)));
     }
-  } // end of userButton() method
+    return(maximum);              // should only happen if nothing recorded
+  }
 
-} // end of DriveSpeed1 class
+  /* record the time for one request, in nanoseconds */
+
+  public void record(long nanos)
+  {
+    if (nanos < 0) nanos = 0;     // clock should never go backwards
+    counts[bucket(nanos)] ++;
+    if (nanos > maximum) maximum = nanos;
+    if (nanos < minimum) minimum = nanos;
+    total ++;
+  }
+
+  /* forget all recorded times */
+
+  public void reset()
+  {
+    java.util.Arrays.fill(counts, 0);
+    maximum = 0;                  // any time will be bigger
+    minimum = Long.MAX_VALUE;     // any time will be smaller
+    total = 0;
+  }
+
+} // end of DriveSpeed1Latency class
 
 // ------------------------------------------------------------------------- //
 
 /*
-  DriveSpeed1User class
+  DriveSpeed1Sampler class
 
-  This class listens to input from the user and passes back event parameters to
-  a static method in the main class.
+  This class is a separate thread that samples the byte count with a nanosecond
+  clock at a fixed interval, for calculating final averages.  Sleeping is until
+  the next scheduled time, so the interval doesn't drift, and samples that were
+  missed (such as when the system is busy) are skipped.
 */
 
-class DriveSpeed1User implements ActionListener, Runnable
+class DriveSpeed1Sampler implements Runnable
 {
-  /* empty constructor */
+  long interval;                  // nanoseconds between samples
+  volatile boolean running;       // false when we should stop
+  Thread thread;                  // thread that runs this sampler
 
-  public DriveSpeed1User() { }
+  /* constructor saves the interval */
 
-  /* button listener, dialog boxes, etc */
+  public DriveSpeed1Sampler(long interval)
+  {
+    this.interval = interval;
+    this.running = true;          // run until stopped
+    this.thread = null;           // caller sets thread before starting
+  }
 
-  public void actionPerformed(ActionEvent event)
+  /* separate thread for sampling */
+
+  public void run()
   {
-    DriveSpeed1.userButton(event);
+    long next = System.nanoTime() + interval; // time for first sample
+    while (running)               // until the pass ends
+    {
+      long now = System.nanoTime();
+      if ((next - now) > 0)       // wait until the next scheduled time
+      {
+        java.util.concurrent.locks.LockSupport.parkNanos(next - now);
+        continue;                 // may wake up early, so check again
+      }
+      DriveSpeed1.updateClockData(DriveSpeed1.bytesAllFiles.sum(), now);
+      next += interval;           // next scheduled time
+      if ((next - now) <= 0)      // skip samples that we missed
+        next = now + interval;
+    }
   }
 
-  /* separate heavy-duty processing thread */
+  /* stop sampling, and wait until the thread finishes */
 
-  public void run() { DriveSpeed1.startErase(); }
+  public void stop()
+  {
+    running = false;              // no more samples after this
+    java.util.concurrent.locks.LockSupport.unpark(thread);
+    try { thread.join(); }
+    catch (InterruptedException ie) { /* ignore errors */ }
+  }
 
-} // end of DriveSpeed1User class
+} // end of DriveSpeed1Sampler class
 
 /* Copyright (c) 2016 by Keith Fenske.  Apache License or GNU GPL. */